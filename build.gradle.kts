@@ -20,3 +20,6 @@ tasks.register("publishToMavenLocal") {
     dependsOn(gradle.includedBuild("e2immu-shallow-aapi").task(":publishToMavenLocal"))
     dependsOn(gradle.includedBuild("e2immu-shallow-analyzer").task(":publishToMavenLocal"))
 }
+tasks.register("jmh") {
+    dependsOn(gradle.includedBuild("e2immu-shallow-benchmarks").task(":jmh"))
+}
@@ -73,6 +73,13 @@ tasks.test {
     useJUnitPlatform()
 }
 
+tasks.register<JavaExec>("packageFileJars") {
+    description = "Creates the indexed jars of analyzed package files in e2immu-shallow-aapi"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass = "org.e2immu.analyzer.shallow.analyzer.PackageFileJar"
+    args("../e2immu-shallow-aapi/src/main/resources/org/e2immu/analyzer/shallow/aapi/analyzedPackageFiles")
+}
+
 publishing {
     repositories {
         maven {
@@ -6,12 +6,84 @@ import org.e2immu.language.cst.api.type.ParameterizedType;
 import org.e2immu.language.cst.impl.analysis.PropertyImpl;
 import org.e2immu.language.cst.impl.analysis.ValueImpl;
 
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.e2immu.language.cst.impl.analysis.ValueImpl.BoolImpl.FALSE;
 import static org.e2immu.language.cst.impl.analysis.ValueImpl.BoolImpl.TRUE;
 
 public class AnalysisHelper {
+    public static final int DEFAULT_CACHE_SIZE = 10_000;
+
+    /*
+    Bounded caches for typeImmutable() and typeIndependent() without dynamic values; null when not caching.
+
+    The cached values are only correct as long as the IMMUTABLE_TYPE, INDEPENDENT_TYPE and
+    IMMUTABLE_TYPE_DETERMINED_BY_PARAMETERS properties of the types involved do not change. Whoever writes
+    these properties must call invalidateCache() afterward. ShallowAnalyzer does so when all its types
+    have been analyzed, before it analyzes their fields and methods.
+     */
+    private final Cache<Value.Immutable> immutableCache;
+    private final Cache<Value.Independent> independentCache;
+
+    public AnalysisHelper() {
+        this(0);
+    }
+
+    /*
+    cacheSize: the maximal number of parameterized types in each cache; 0 to disable caching.
+     */
+    public AnalysisHelper(int cacheSize) {
+        immutableCache = cacheSize > 0 ? new Cache<>(cacheSize) : null;
+        independentCache = cacheSize > 0 ? new Cache<>(cacheSize) : null;
+    }
+
+    /*
+    Bounded, and safe for concurrent use, because the analyzers can run in parallel; reads do not lock.
+    When a put makes the cache exceed its maximal size, one thread evicts a quarter of the entries, in no particular
+    order: least recently used eviction would need a lock on every read. The value is computed outside the cache,
+    as the computation recurses into the type parameters; two threads may compute the same value, which is harmless.
+     */
+    private static class Cache<V> {
+        private final Map<ParameterizedType, V> map = new ConcurrentHashMap<>();
+        private final AtomicBoolean evicting = new AtomicBoolean();
+        private final int maxSize;
+
+        Cache(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        V get(ParameterizedType parameterizedType) {
+            return map.get(parameterizedType);
+        }
+
+        void put(ParameterizedType parameterizedType, V value) {
+            map.put(parameterizedType, value);
+            if (map.size() > maxSize && evicting.compareAndSet(false, true)) {
+                try {
+                    int toRemove = map.size() - maxSize + maxSize / 4;
+                    Iterator<ParameterizedType> iterator = map.keySet().iterator();
+                    while (toRemove-- > 0 && iterator.hasNext()) {
+                        iterator.next();
+                        iterator.remove();
+                    }
+                } finally {
+                    evicting.set(false);
+                }
+            }
+        }
+
+        void clear() {
+            map.clear();
+        }
+    }
+
+    public void invalidateCache() {
+        if (immutableCache != null) immutableCache.clear();
+        if (independentCache != null) independentCache.clear();
+    }
 
     public Value.Immutable typeImmutable(ParameterizedType parameterizedType) {
         return typeImmutable(parameterizedType, Map.of());
@@ -24,6 +96,18 @@ public class AnalysisHelper {
      */
     public Value.Immutable typeImmutable(ParameterizedType parameterizedType,
                                          Map<ParameterizedType, Value.Immutable> dynamicValues) {
+        if (immutableCache == null || !dynamicValues.isEmpty()) {
+            return computeTypeImmutable(parameterizedType, dynamicValues);
+        }
+        Value.Immutable cached = immutableCache.get(parameterizedType);
+        if (cached != null) return cached;
+        Value.Immutable immutable = computeTypeImmutable(parameterizedType, dynamicValues);
+        if (immutable != null) immutableCache.put(parameterizedType, immutable);
+        return immutable;
+    }
+
+    private Value.Immutable computeTypeImmutable(ParameterizedType parameterizedType,
+                                                 Map<ParameterizedType, Value.Immutable> dynamicValues) {
         if (parameterizedType.arrays() > 0) {
             return ValueImpl.ImmutableImpl.FINAL_FIELDS;
         }
@@ -70,6 +154,18 @@ public class AnalysisHelper {
 
 
     public Value.Independent typeIndependent(ParameterizedType parameterizedType) {
+        if (independentCache == null) {
+            return computeTypeIndependent(parameterizedType);
+        }
+        Value.Independent cached = independentCache.get(parameterizedType);
+        if (cached != null) return cached;
+        Value.Independent independent = computeTypeIndependent(parameterizedType);
+        // null when IMMUTABLE_TYPE_DETERMINED_BY_PARAMETERS is not yet known: not cached
+        if (independent != null) independentCache.put(parameterizedType, independent);
+        return independent;
+    }
+
+    private Value.Independent computeTypeIndependent(ParameterizedType parameterizedType) {
         if (parameterizedType.arrays() > 0) {
             // because the "fields" of the array, i.e. the cells, can be mutated
             return ValueImpl.IndependentImpl.DEPENDENT;
@@ -0,0 +1,147 @@
+package org.e2immu.analyzer.shallow.analyzer;
+
+import org.e2immu.language.cst.api.analysis.Codec;
+import org.e2immu.language.cst.api.info.TypeInfo;
+import org.e2immu.language.inspection.api.integration.JavaInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/*
+Result of the lazy mode of LoadAnalyzedPackageFiles: for each package, the package files that contain its analyzed
+data, in the order in which the eager loader would have read them. Nothing is decoded until a type of the package
+is requested via ensureLoaded or getOrLoad.
+
+Packages are identified by their compressed name, as used for the file names by WriteAnalysis: "java.util" becomes
+"JavaUtil".
+
+This class is thread-safe; decoding happens while holding the lock, because the codec writes into the
+analysis() of shared Info objects.
+ */
+public class AnalyzedPackageIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AnalyzedPackageIndex.class);
+
+    /*
+    Exactly one of content and path is non-null.
+     */
+    record PackageFile(String name, ByteBuffer content, Path path) {
+    }
+
+    private final LoadAnalyzedPackageFiles loader;
+    private final Codec codec;
+    private final Map<String, List<PackageFile>> packageFiles;
+    private final Set<String> loaded = new HashSet<>();
+    private int countPrimaryTypes;
+
+    AnalyzedPackageIndex(LoadAnalyzedPackageFiles loader, Codec codec, Map<String, List<PackageFile>> packageFiles) {
+        this.loader = loader;
+        this.codec = codec;
+        this.packageFiles = packageFiles;
+    }
+
+    public static String compressedPackageName(String packageName) {
+        return Arrays.stream(packageName.split("\\."))
+                .filter(s -> !s.isEmpty())
+                .map(s -> Character.toUpperCase(s.charAt(0)) + s.substring(1))
+                .collect(Collectors.joining());
+    }
+
+    List<PackageFile> allPackageFiles() {
+        return packageFiles.values().stream().flatMap(List::stream).toList();
+    }
+
+    public Set<String> packages() {
+        return Collections.unmodifiableSet(packageFiles.keySet());
+    }
+
+    public synchronized boolean isLoaded(String packageName) {
+        return loaded.contains(compressedPackageName(packageName));
+    }
+
+    public synchronized int countPrimaryTypes() {
+        return countPrimaryTypes;
+    }
+
+    /*
+    Convenience method: load the type via the compiled types manager, and make sure that its analyzed data is present.
+     */
+    public TypeInfo getOrLoad(JavaInspector javaInspector, Class<?> clazz) {
+        TypeInfo typeInfo = javaInspector.compiledTypesManager().getOrLoad(clazz);
+        if (typeInfo != null) ensureLoaded(typeInfo);
+        return typeInfo;
+    }
+
+    public TypeInfo getOrLoad(JavaInspector javaInspector, String fullyQualifiedName) {
+        TypeInfo typeInfo = javaInspector.compiledTypesManager().getOrLoad(fullyQualifiedName);
+        if (typeInfo != null) ensureLoaded(typeInfo);
+        return typeInfo;
+    }
+
+    /*
+    Loads the package of the type, and the packages it depends on as computed by PackageManifest.packageDependencies:
+    those of its supertypes, because the analyzers inspect the properties of the whole hierarchy, and those of the
+    types of its fields, and of the parameters and return values of its methods. The dependencies are not followed
+    transitively. Returns the number of primary types decoded by this call.
+     */
+    public synchronized int ensureLoaded(TypeInfo typeInfo) {
+        Set<String> packageNames = new TreeSet<>();
+        packageNames.add(typeInfo.packageName());
+        PackageManifest.packageDependencies(List.of(typeInfo)).forEach((packageName, dependencies) -> {
+            packageNames.add(packageName);
+            packageNames.addAll(dependencies);
+        });
+        int count = 0;
+        for (String packageName : packageNames) {
+            count += ensureLoaded(packageName);
+        }
+        return count;
+    }
+
+    public synchronized int ensureLoaded(String packageName) {
+        String compressed = compressedPackageName(packageName);
+        if (loaded.contains(compressed)) return 0;
+        int count = load(compressed);
+        LOGGER.debug("Loaded {} primary types of package {}", count, packageName);
+        return count;
+    }
+
+    /*
+    Loads all packages that have not been loaded yet; equivalent to the eager mode of LoadAnalyzedPackageFiles.
+     */
+    public synchronized int loadAll() {
+        int count = 0;
+        for (String compressed : packageFiles.keySet()) {
+            if (!loaded.contains(compressed)) {
+                count += load(compressed);
+            }
+        }
+        return count;
+    }
+
+    private int load(String compressed) {
+        int count = 0;
+        for (PackageFile packageFile : packageFiles.getOrDefault(compressed, List.of())) {
+            count += load(packageFile);
+        }
+        loaded.add(compressed);
+        countPrimaryTypes += count;
+        return count;
+    }
+
+    private int load(PackageFile packageFile) {
+        try {
+            if (packageFile.path() != null) {
+                return loader.go(codec, packageFile.path());
+            }
+            return loader.go(codec, packageFile.name(), packageFile.content());
+        } catch (IOException ioe) {
+            throw new UncheckedIOException("Cannot load " + packageFile.name(), ioe);
+        }
+    }
+}
@@ -15,32 +15,106 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.net.URI;
 import java.util.*;
 
 public class AnnotatedApiParser implements AnnotationProvider {
     private static final Logger LOGGER = LoggerFactory.getLogger(AnnotatedApiParser.class);
 
-    private record Data(List<AnnotationExpression> annotations) {
-    }
-
     private final List<TypeInfo> typesParsed = new ArrayList<>();
-    private final Map<Info, Data> infoMap = new LinkedHashMap<>();
+
+    /*
+    Every method, constructor, parameter and field of an AAPI type is transferred, annotated or not; an AAPI source
+    file holds a few dozen of them on average.
+     */
+    private static final int EXPECTED_INFOS_PER_SOURCE_FILE = 64;
+
+    /*
+    The annotations of the target Info objects. The target objects are unique within the JavaInspector, so that
+    they can be keyed by identity. The map is presized in initialize, once the number of source files is known.
+    Next to the map, one list per kind of Info, in the order in which they were first annotated.
+     */
+    private Map<Info, List<AnnotationExpression>> infoMap = new IdentityHashMap<>();
+    private final ArrayList<Info> infos = new ArrayList<>();
+    private final Set<Info> infoSet = new AbstractSet<>() {
+        @Override
+        public Iterator<Info> iterator() {
+            return Collections.unmodifiableList(infos).iterator();
+        }
+
+        @Override
+        public int size() {
+            return infos.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return infoMap.containsKey(o);
+        }
+    };
+    private final List<TypeInfo> types = new ArrayList<>();
+    private final List<MethodInfo> methods = new ArrayList<>();
+    private final List<FieldInfo> fields = new ArrayList<>();
+    private final List<ParameterInfo> parameters = new ArrayList<>();
+    private final Map<String, List<URI>> sourcesPerApiPackage = new TreeMap<>();
     private final JavaInspector javaInspector;
+    private final SnapshotCache snapshotCache;
+    private final ShallowAnalyzerMetrics metrics;
     private int warnings;
     private int annotatedTypes;
     private int annotations;
 
     public AnnotatedApiParser() {
+        this(null);
+    }
+
+    /*
+    snapshotCache: when not null, the analyzed package files are restored from (and, the first time, written to)
+    a snapshot in the cache.
+     */
+    public AnnotatedApiParser(SnapshotCache snapshotCache) {
+        this(snapshotCache, new ShallowAnalyzerMetrics());
+    }
+
+    /*
+    metrics: records the inspection, loading, parsing and transfer stages; ShallowAnalyzer adds its own stages.
+     */
+    public AnnotatedApiParser(SnapshotCache snapshotCache, ShallowAnalyzerMetrics metrics) {
         javaInspector = new JavaInspectorImpl();
+        this.snapshotCache = snapshotCache;
+        this.metrics = metrics;
     }
 
     public void initialize(InputConfiguration inputConfiguration, AnnotatedAPIConfiguration annotatedAPIConfiguration) throws IOException {
-        javaInspector.initialize(inputConfiguration);
-        new LoadAnalyzedPackageFiles().go(javaInspector, annotatedAPIConfiguration);
-        javaInspector.sourceFiles().forEach(sf -> {
+        try (ShallowAnalyzerMetrics.Measurement ignored = metrics.start(ShallowAnalyzerMetrics.Stage.INSPECTION)) {
+            javaInspector.initialize(inputConfiguration);
+        }
+        try (ShallowAnalyzerMetrics.Measurement ignored =
+                     metrics.start(ShallowAnalyzerMetrics.Stage.LOAD_ANALYZED_PACKAGES)) {
+            if (snapshotCache != null) {
+                snapshotCache.go(javaInspector, annotatedAPIConfiguration);
+            } else {
+                new LoadAnalyzedPackageFiles().go(javaInspector, annotatedAPIConfiguration);
+            }
+        }
+        List<SourceFile> sourceFiles = new ArrayList<>();
+        javaInspector.sourceFiles().forEach(sourceFiles::add);
+        if (infoMap.isEmpty()) {
+            int expectedInfos = sourceFiles.size() * EXPECTED_INFOS_PER_SOURCE_FILE;
+            infoMap = new IdentityHashMap<>(expectedInfos);
+            infos.ensureCapacity(expectedInfos);
+        }
+        for (SourceFile sf : sourceFiles) {
             LOGGER.info("Loading {}", sf.uri());
-            load(sf);
-        });
+            ParseResult parseResult;
+            try (ShallowAnalyzerMetrics.Measurement ignored = metrics.start(ShallowAnalyzerMetrics.Stage.PARSE)) {
+                parseResult = parse(sf);
+            }
+            try (ShallowAnalyzerMetrics.Measurement ignored =
+                         metrics.start(ShallowAnalyzerMetrics.Stage.TRANSFER_ANNOTATIONS)) {
+                load(sf, parseResult);
+            }
+        }
         LOGGER.info("Finished parsing, annotated {} types, counted {} annotations, issued {} warning(s)",
                 annotatedTypes, annotations, warnings);
     }
@@ -59,8 +133,11 @@ public class AnnotatedApiParser implements AnnotationProvider {
         initialize(inputConfiguration, new AnnotatedAPIConfigurationImpl.Builder().build());
     }
 
-    private void load(SourceFile sourceFile) {
-        ParseResult parseResult = javaInspector.parse(sourceFile.uri(), JavaInspectorImpl.FAIL_FAST).parseResult();
+    private ParseResult parse(SourceFile sourceFile) {
+        return javaInspector.parse(sourceFile.uri(), JavaInspectorImpl.FAIL_FAST).parseResult();
+    }
+
+    private void load(SourceFile sourceFile, ParseResult parseResult) {
         TypeInfo typeInfo = parseResult.firstType();
         typesParsed.add(typeInfo);
         FieldInfo packageName = typeInfo.getFieldByName("PACKAGE_NAME", false);
@@ -76,6 +153,7 @@ public class AnnotatedApiParser implements AnnotationProvider {
             return;
         }
         LOGGER.debug("Starting AAPI inspection of {}, in API package {}", typeInfo, apiPackage);
+        sourcesPerApiPackage.computeIfAbsent(apiPackage, p -> new ArrayList<>()).add(sourceFile.uri());
         typeInfo.subTypes().forEach(st -> inspect(apiPackage, st));
     }
 
@@ -98,9 +176,8 @@ public class AnnotatedApiParser implements AnnotationProvider {
     }
 
     private void transferAnnotations(TypeInfo sourceType, TypeInfo targetType) {
-        Data typeData = new Data(sourceType.annotations());
         annotations += sourceType.annotations().size();
-        infoMap.put(targetType, typeData);
+        if (put(targetType, sourceType.annotations())) types.add(targetType);
 
         for (TypeInfo subType : sourceType.subTypes()) {
             TypeInfo targetSubType = targetType.findSubType(subType.simpleName(), false);
@@ -112,12 +189,12 @@ public class AnnotatedApiParser implements AnnotationProvider {
                         subType.simpleName(), targetType);
             }
         }
+        MethodIndex methodIndex = new MethodIndex(targetType);
         for (MethodInfo sourceMethod : sourceType.methods()) {
-            MethodInfo targetMethod = findTargetMethod(targetType, sourceMethod);
+            MethodInfo targetMethod = findTargetMethod(methodIndex, sourceMethod);
             if (targetMethod != null) {
                 annotations += sourceMethod.annotations().size();
-                Data methodData = new Data(sourceMethod.annotations());
-                infoMap.put(targetMethod, methodData);
+                if (put(targetMethod, sourceMethod.annotations())) methods.add(targetMethod);
                 doParameters(sourceMethod, targetMethod);
             } else {
                 LOGGER.warn("Ignoring method '{}', not found in target type '{}'", sourceMethod, targetType);
@@ -125,11 +202,10 @@ public class AnnotatedApiParser implements AnnotationProvider {
             }
         }
         for (MethodInfo sourceMethod : sourceType.constructors()) {
-            MethodInfo targetMethod = findTargetConstructor(targetType, sourceMethod);
+            MethodInfo targetMethod = findTargetConstructor(methodIndex, sourceMethod);
             if (targetMethod != null) {
                 annotations += sourceMethod.annotations().size();
-                Data methodData = new Data(sourceMethod.annotations());
-                infoMap.put(targetMethod, methodData);
+                if (put(targetMethod, sourceMethod.annotations())) methods.add(targetMethod);
                 doParameters(sourceMethod, targetMethod);
             } else {
                 LOGGER.warn("Ignoring constructor '{}', not found in target type '{}'", sourceMethod, targetType);
@@ -140,8 +216,7 @@ public class AnnotatedApiParser implements AnnotationProvider {
             FieldInfo targetField = findTargetField(targetType, sourceField);
             if (targetField != null) {
                 annotations += sourceField.annotations().size();
-                Data fieldData = new Data(sourceField.annotations());
-                infoMap.put(targetField, fieldData);
+                if (put(targetField, sourceField.annotations())) fields.add(targetField);
             } else {
                 LOGGER.warn("Ignoring field '{}', not found in target type '{}'", sourceField, targetType);
                 ++warnings;
@@ -154,29 +229,65 @@ public class AnnotatedApiParser implements AnnotationProvider {
         for (ParameterInfo sourceParameter : sourceMethod.parameters()) {
             ParameterInfo targetParameter = targetMethod.parameters().get(i);
             annotations += sourceParameter.annotations().size();
-            Data paramData = new Data(sourceParameter.annotations());
-            infoMap.put(targetParameter, paramData);
+            if (put(targetParameter, sourceParameter.annotations())) parameters.add(targetParameter);
             i++;
         }
     }
 
-    private MethodInfo findTargetConstructor(TypeInfo targetType, MethodInfo sourceMethod) {
-        int n = sourceMethod.parameters().size();
-        for (MethodInfo candidate : targetType.constructors()) {
-            if (candidate.parameters().size() == n && sameParameterTypes(candidate, sourceMethod)) {
+    // returns true when the target had no annotations yet
+    private boolean put(Info target, List<AnnotationExpression> annotationExpressions) {
+        if (infoMap.put(target, annotationExpressions) == null) {
+            infos.add(target);
+            return true;
+        }
+        return false;
+    }
+
+    /*
+    The methods and constructors of a target type, grouped by name and number of parameters, in their original order.
+    Built once per target type, so that finding the target of each source method is no longer a linear scan over
+    all methods of the type. Candidates in a group are still compared with sameParameterTypes, in the original order,
+    so that the result is exactly the same as that of a scan.
+     */
+    private static class MethodIndex {
+        private record Key(String name, int numParameters) {
+        }
+
+        private final Map<Key, List<MethodInfo>> methods = new HashMap<>();
+        private final Map<Integer, List<MethodInfo>> constructors = new HashMap<>();
+
+        MethodIndex(TypeInfo targetType) {
+            for (MethodInfo methodInfo : targetType.methods()) {
+                methods.computeIfAbsent(new Key(methodInfo.name(), methodInfo.parameters().size()),
+                        k -> new ArrayList<>()).add(methodInfo);
+            }
+            for (MethodInfo constructor : targetType.constructors()) {
+                constructors.computeIfAbsent(constructor.parameters().size(), n -> new ArrayList<>()).add(constructor);
+            }
+        }
+
+        List<MethodInfo> methods(String name, int numParameters) {
+            return methods.getOrDefault(new Key(name, numParameters), List.of());
+        }
+
+        List<MethodInfo> constructors(int numParameters) {
+            return constructors.getOrDefault(numParameters, List.of());
+        }
+    }
+
+    private MethodInfo findTargetConstructor(MethodIndex methodIndex, MethodInfo sourceMethod) {
+        for (MethodInfo candidate : methodIndex.constructors(sourceMethod.parameters().size())) {
+            if (sameParameterTypes(candidate, sourceMethod)) {
                 return candidate;
             }
         }
         return null;
     }
 
-    private MethodInfo findTargetMethod(TypeInfo targetType, MethodInfo sourceMethod) {
-        int n = sourceMethod.parameters().size();
+    private MethodInfo findTargetMethod(MethodIndex methodIndex, MethodInfo sourceMethod) {
         String sourceMethodName = trimDollar(sourceMethod.name());
-        for (MethodInfo candidate : targetType.methods()) {
-            if (candidate.parameters().size() == n
-                && candidate.name().equals(sourceMethodName)
-                && sameParameterTypes(candidate, sourceMethod)) {
+        for (MethodInfo candidate : methodIndex.methods(sourceMethodName, sourceMethod.parameters().size())) {
+            if (sameParameterTypes(candidate, sourceMethod)) {
                 return candidate;
             }
         }
@@ -209,28 +320,53 @@ public class AnnotatedApiParser implements AnnotationProvider {
         return (pt1.typeParameter() == null) == (pt2.typeParameter() == null);
     }
 
-    // for testing
+    @Override
     public Runtime runtime() {
         return javaInspector.runtime();
     }
 
     @Override
     public List<AnnotationExpression> annotations(Info info) {
-        Data data = infoMap.get(info);
-        if (data != null) return data.annotations;
-        return List.of();
+        List<AnnotationExpression> list = infoMap.get(info);
+        return list == null ? List.of() : list;
     }
 
     public int getWarnings() {
         return warnings;
     }
 
+    public int getAnnotationCount() {
+        return annotations;
+    }
+
+    public ShallowAnalyzerMetrics metrics() {
+        return metrics;
+    }
+
+    /*
+    Unmodifiable views, no copies; in the order in which the infos were first annotated.
+     */
     public List<TypeInfo> types() {
-        return infoMap.keySet().stream().filter(i -> i instanceof TypeInfo).map(t -> (TypeInfo) t).toList();
+        return Collections.unmodifiableList(types);
+    }
+
+    public List<MethodInfo> methods() {
+        return Collections.unmodifiableList(methods);
     }
 
+    public List<FieldInfo> fields() {
+        return Collections.unmodifiableList(fields);
+    }
+
+    public List<ParameterInfo> parameters() {
+        return Collections.unmodifiableList(parameters);
+    }
+
+    /*
+    A set view, iterating in the same order as the lists; membership is by identity.
+     */
     public Set<Info> infos() {
-        return infoMap.keySet();
+        return infoSet;
     }
 
     public JavaInspector javaInspector() {
@@ -240,4 +376,11 @@ public class AnnotatedApiParser implements AnnotationProvider {
     public List<TypeInfo> typesParsed() {
         return typesParsed;
     }
+
+    /*
+    API package (the value of the PACKAGE_NAME field) to the AAPI source files that annotate it
+     */
+    public Map<String, List<URI>> sourcesPerApiPackage() {
+        return sourcesPerApiPackage;
+    }
 }
@@ -2,6 +2,7 @@ package org.e2immu.analyzer.shallow.analyzer;
 
 import org.e2immu.language.cst.api.expression.AnnotationExpression;
 import org.e2immu.language.cst.api.info.Info;
+import org.e2immu.language.cst.api.runtime.Runtime;
 
 import java.util.List;
 
@@ -9,4 +10,12 @@ public interface AnnotationProvider {
 
     List<AnnotationExpression> annotations(Info info);
 
+    /*
+    The Runtime in which the annotation types live, used to resolve them once rather than by name for every
+    annotation expression. Providers without one fall back on the name lookup.
+     */
+    default Runtime runtime() {
+        return null;
+    }
+
 }
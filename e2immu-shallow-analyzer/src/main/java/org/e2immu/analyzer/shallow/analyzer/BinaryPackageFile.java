@@ -0,0 +1,418 @@
+package org.e2immu.analyzer.shallow.analyzer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+/*
+Compact binary encoding of an analyzed package file. The JSON files remain the readable source of truth;
+the binary form contains exactly the same information, and can be converted back and forth.
+
+Layout, where all numbers are unsigned variable-length integers (7 bits per byte, least significant group first):
+
+magic       'A' 'A' 'A' 'B', followed by a version byte
+strings     count, then for each string: its length in bytes, and its UTF-8 bytes.
+            The table holds the property keys, the names (including the type character), and the raw JSON text
+            of the property values. Each distinct string occurs only once.
+types       count, then for each primary type an info block
+
+info        length in bytes of the rest of the block, so that a reader can skip it
+            index of the name
+            number of properties + 1, or 0 when there is no "data"
+            for each property: index of the key, index of the value
+            0 when there is no "sub" or "subs"; otherwise (number of sub-blocks << 2) | 2, with bit 0 set for a "subs"
+            list, so that an empty "subs" list is kept
+            the sub-blocks
+
+Converting JSON written by WriteAnalysis to binary and back gives the same bytes.
+ */
+public class BinaryPackageFile {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BinaryPackageFile.class);
+
+    public static final String EXTENSION = ".aaapi";
+    public static final String JSON_EXTENSION = ".json";
+    private static final byte[] MAGIC = {'A', 'A', 'A', 'B'};
+    private static final byte VERSION = 2;
+
+    private BinaryPackageFile() {
+    }
+
+    public static boolean isBinary(String fileName) {
+        return fileName.endsWith(EXTENSION);
+    }
+
+    // ---------------------------------------------------------------------------------------------- JSON -> binary
+
+    private static class InfoNode {
+        final String name;
+        final List<String> properties = new ArrayList<>(); // key, value, key, value...
+        boolean haveData;
+        boolean haveSubs;
+        boolean list;
+        final List<InfoNode> subs = new ArrayList<>();
+
+        InfoNode(String name) {
+            this.name = name;
+        }
+    }
+
+    /*
+    Builds a small tree of the events it receives; the binary file is only written once we know all the strings.
+    The events of more than one package file can be collected into a single binary file.
+     */
+    public static class Collector implements StreamingJsonDecoder.Handler {
+        private final List<InfoNode> primaryTypes = new ArrayList<>();
+        private final Deque<InfoNode> stack = new ArrayDeque<>();
+
+        @Override
+        public void startInfo(char type, String name) {
+            InfoNode node = new InfoNode(type + name);
+            if (stack.isEmpty()) {
+                primaryTypes.add(node);
+            } else {
+                stack.peek().subs.add(node);
+            }
+            stack.push(node);
+        }
+
+        @Override
+        public void property(String key, String value) {
+            InfoNode node = stack.peek();
+            node.properties.add(key);
+            node.properties.add(value);
+        }
+
+        @Override
+        public void endData() {
+            stack.peek().haveData = true;
+        }
+
+        @Override
+        public void startSubs(boolean list) {
+            InfoNode node = stack.peek();
+            node.haveSubs = true;
+            node.list = list;
+        }
+
+        @Override
+        public void endInfo() {
+            stack.pop();
+        }
+
+        public int countPrimaryTypes() {
+            return primaryTypes.size();
+        }
+
+        public void write(OutputStream outputStream) throws IOException {
+            BinaryPackageFile.write(primaryTypes, outputStream);
+        }
+    }
+
+    public static void jsonToBinary(Reader json, OutputStream outputStream) throws IOException {
+        Collector collector = new Collector();
+        new StreamingJsonDecoder(json, collector).go();
+        collector.write(outputStream);
+    }
+
+    private static void write(List<InfoNode> primaryTypes, OutputStream outputStream) throws IOException {
+        Map<String, Integer> stringIndex = new LinkedHashMap<>();
+        primaryTypes.forEach(node -> collectStrings(node, stringIndex));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(MAGIC);
+        out.write(VERSION);
+        writeVarInt(out, stringIndex.size());
+        for (String string : stringIndex.keySet()) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(out, bytes.length);
+            out.write(bytes);
+        }
+        writeVarInt(out, primaryTypes.size());
+        for (InfoNode node : primaryTypes) {
+            writeInfo(out, node, stringIndex);
+        }
+        out.writeTo(outputStream);
+    }
+
+    private static void collectStrings(InfoNode node, Map<String, Integer> stringIndex) {
+        stringIndex.putIfAbsent(node.name, stringIndex.size());
+        for (String s : node.properties) {
+            stringIndex.putIfAbsent(s, stringIndex.size());
+        }
+        node.subs.forEach(sub -> collectStrings(sub, stringIndex));
+    }
+
+    private static void writeInfo(ByteArrayOutputStream out, InfoNode node, Map<String, Integer> stringIndex) {
+        ByteArrayOutputStream block = new ByteArrayOutputStream();
+        writeVarInt(block, stringIndex.get(node.name));
+        if (node.haveData) {
+            writeVarInt(block, node.properties.size() / 2 + 1);
+            for (String s : node.properties) {
+                writeVarInt(block, stringIndex.get(s));
+            }
+        } else {
+            writeVarInt(block, 0);
+        }
+        writeVarInt(block, node.haveSubs ? node.subs.size() << 2 | 2 | (node.list ? 1 : 0) : 0);
+        for (InfoNode sub : node.subs) {
+            writeInfo(block, sub, stringIndex);
+        }
+        writeVarInt(out, block.size());
+        out.writeBytes(block.toByteArray());
+    }
+
+    private static void writeVarInt(OutputStream out, int value) {
+        try {
+            int v = value;
+            while ((v & ~0x7F) != 0) {
+                out.write((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            out.write(v);
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe); // not on a ByteArrayOutputStream
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------- binary -> events
+
+    /*
+    Sends the same events to the handler as the StreamingJsonDecoder would on the corresponding JSON file.
+    Returns the number of primary types.
+     */
+    public static int decode(ByteBuffer buffer, StreamingJsonDecoder.Handler handler) throws IOException {
+        try {
+            for (byte b : MAGIC) {
+                if (buffer.get() != b) throw new IOException("Not a binary analyzed package file");
+            }
+            byte version = buffer.get();
+            if (version != VERSION) throw new IOException("Unsupported binary analyzed package file version " + version);
+            int n = readVarInt(buffer);
+            String[] strings = new String[n];
+            for (int i = 0; i < n; i++) {
+                strings[i] = readString(buffer, readVarInt(buffer));
+            }
+            int countPrimaryTypes = readVarInt(buffer);
+            for (int i = 0; i < countPrimaryTypes; i++) {
+                handler.startPrimaryType();
+                decodeInfo(buffer, strings, handler);
+                handler.endPrimaryType();
+            }
+            return countPrimaryTypes;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IOException("Corrupt binary analyzed package file", e);
+        }
+    }
+
+    private static void decodeInfo(ByteBuffer buffer, String[] strings, StreamingJsonDecoder.Handler handler) {
+        readVarInt(buffer); // length, only needed when skipping
+        String name = strings[readVarInt(buffer)];
+        handler.startInfo(name.charAt(0), name.substring(1));
+        int properties = readVarInt(buffer);
+        if (properties > 0) {
+            for (int i = 1; i < properties; i++) {
+                String key = strings[readVarInt(buffer)];
+                handler.property(key, strings[readVarInt(buffer)]);
+            }
+            handler.endData();
+        }
+        int subs = readVarInt(buffer);
+        if ((subs & 2) != 0) {
+            handler.startSubs((subs & 1) != 0);
+            for (int i = 0; i < subs >>> 2; i++) {
+                decodeInfo(buffer, strings, handler);
+            }
+        }
+        handler.endInfo();
+    }
+
+    private static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static String readString(ByteBuffer buffer, int length) {
+        if (length > buffer.remaining()) throw new BufferUnderflowException();
+        if (buffer.hasArray()) {
+            int offset = buffer.arrayOffset() + buffer.position();
+            buffer.position(buffer.position() + length);
+            return new String(buffer.array(), offset, length, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // ---------------------------------------------------------------------------------------------- binary -> JSON
+
+    /*
+    Writes the JSON in the format of WriteAnalysis.
+     */
+    private static class JsonWriter implements StreamingJsonDecoder.Handler {
+        private final Writer writer;
+        private final Deque<int[]> stack = new ArrayDeque<>(); // per open info: indent, number of subs written, list?
+        private boolean firstPrimaryType = true;
+        private boolean firstProperty;
+        private IOException exception;
+
+        JsonWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        private void write(String s) {
+            if (exception != null) return;
+            try {
+                writer.write(s);
+            } catch (IOException ioe) {
+                exception = ioe;
+            }
+        }
+
+        @Override
+        public void startPrimaryType() {
+            // WriteAnalysis separates primary types by an empty line
+            write(firstPrimaryType ? "[\n" : ",\n\n");
+            firstPrimaryType = false;
+        }
+
+        @Override
+        public void startInfo(char type, String name) {
+            int indent = 0;
+            int[] parent = stack.peek();
+            if (parent != null) {
+                indent = parent[0] + 1;
+                if (parent[1] > 0) write(",\n");
+                parent[1]++;
+                write(" ".repeat(indent));
+            }
+            stack.push(new int[]{indent, 0, 0});
+            write("{\"name\": " + quote(type + name));
+            firstProperty = true;
+        }
+
+        @Override
+        public void property(String key, String value) {
+            write(firstProperty ? ", \"data\":{" : ",");
+            firstProperty = false;
+            write(quote(key) + ":" + value);
+        }
+
+        @Override
+        public void endData() {
+            write(firstProperty ? ", \"data\":{}" : "}");
+        }
+
+        @Override
+        public void startSubs(boolean list) {
+            int[] current = stack.peek();
+            assert current != null;
+            current[2] = list ? 1 : 0;
+            write(list ? ", \"subs\":[\n" : ", \"sub\":\n");
+        }
+
+        @Override
+        public void endInfo() {
+            int[] current = stack.pop();
+            if (current[2] == 1) write("]");
+            write("}");
+        }
+
+        void finish() throws IOException {
+            write(firstPrimaryType ? "[\n]\n" : "\n]\n");
+            if (exception != null) throw exception;
+        }
+
+        private static String quote(String s) {
+            StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+            for (char c : s.toCharArray()) {
+                switch (c) {
+                    case '"' -> sb.append("\\\"");
+                    case '\\' -> sb.append("\\\\");
+                    case '\n' -> sb.append("\\n");
+                    case '\r' -> sb.append("\\r");
+                    case '\t' -> sb.append("\\t");
+                    default -> {
+                        if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                        else sb.append(c);
+                    }
+                }
+            }
+            return sb.append('"').toString();
+        }
+    }
+
+    public static void binaryToJson(ByteBuffer buffer, Writer writer) throws IOException {
+        JsonWriter jsonWriter = new JsonWriter(writer);
+        decode(buffer, jsonWriter);
+        jsonWriter.finish();
+    }
+
+    // ---------------------------------------------------------------------------------------------- files
+
+    public static void convertJsonToBinary(Path jsonFile, Path binaryFile) throws IOException {
+        try (Reader reader = Files.newBufferedReader(jsonFile);
+             OutputStream os = new BufferedOutputStream(Files.newOutputStream(binaryFile))) {
+            jsonToBinary(reader, os);
+        }
+    }
+
+    public static void convertBinaryToJson(Path binaryFile, Path jsonFile) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(binaryFile));
+        try (Writer writer = Files.newBufferedWriter(jsonFile)) {
+            binaryToJson(buffer, writer);
+        }
+    }
+
+    /*
+    Converts all files in a directory tree, keeping the relative paths. Returns the number of files converted.
+     */
+    public static int convertDirectory(Path source, Path destination, boolean toBinary) throws IOException {
+        String from = toBinary ? JSON_EXTENSION : EXTENSION;
+        String to = toBinary ? EXTENSION : JSON_EXTENSION;
+        int count = 0;
+        try (Stream<Path> files = Files.walk(source).filter(p -> p.toString().endsWith(from))) {
+            for (Path file : files.toList()) {
+                Path relative = source.relativize(file);
+                String fileName = relative.getFileName().toString();
+                Path target = destination.resolve(relative)
+                        .resolveSibling(fileName.substring(0, fileName.length() - from.length()) + to);
+                Files.createDirectories(target.getParent());
+                if (toBinary) {
+                    convertJsonToBinary(file, target);
+                } else {
+                    convertBinaryToJson(file, target);
+                }
+                LOGGER.debug("Converted {} into {}", file, target);
+                ++count;
+            }
+        }
+        LOGGER.info("Converted {} file(s) from {} into {}", count, source, destination);
+        return count;
+    }
+
+    /*
+    Usage: BinaryPackageFile toBinary|toJson sourceDirectory destinationDirectory
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3 || !"toBinary".equals(args[0]) && !"toJson".equals(args[0])) {
+            System.err.println("Usage: BinaryPackageFile toBinary|toJson sourceDirectory destinationDirectory");
+            System.exit(1);
+        }
+        convertDirectory(Path.of(args[1]), Path.of(args[2]), "toBinary".equals(args[0]));
+    }
+}
@@ -10,6 +10,7 @@ import org.e2immu.language.cst.api.analysis.Property;
 import org.e2immu.language.cst.api.analysis.Value;
 import org.e2immu.language.cst.api.expression.AnnotationExpression;
 import org.e2immu.language.cst.api.info.*;
+import org.e2immu.language.cst.api.runtime.Runtime;
 import org.e2immu.language.cst.api.variable.FieldReference;
 import org.e2immu.language.cst.impl.analysis.PropertyImpl;
 import org.e2immu.language.cst.impl.analysis.ValueImpl;
@@ -20,74 +21,121 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 class CommonAnalyzer {
     private static final Logger LOGGER = LoggerFactory.getLogger(CommonAnalyzer.class);
 
     protected final AnnotationProvider annotationProvider;
+    protected final SuperTypeCache superTypeCache;
+    private final Map<LeastKey, Value> leastOfHierarchy = new ConcurrentHashMap<>();
+    private final Map<TypeInfo, AnnotationHandler> handlers;
+
+    private record LeastKey(TypeInfo typeInfo, Property property, Value defaultValue, Value bestValue) {
+    }
 
     CommonAnalyzer(AnnotationProvider annotationProvider) {
+        this(annotationProvider, new SuperTypeCache());
+    }
+
+    CommonAnalyzer(AnnotationProvider annotationProvider, SuperTypeCache superTypeCache) {
         this.annotationProvider = annotationProvider;
+        this.superTypeCache = superTypeCache;
+        this.handlers = handlers(annotationProvider.runtime());
     }
 
+    /*
+    The minimum of the property over the public types in the hierarchy of typeInfo, excluding typeInfo itself.
+
+    Computed from the direct supertypes only: their own value, when they are public, and their own minimum,
+    which is memoized. This is correct because the analyzers visit the types in hierarchy order: by the time
+    the minimum of a type is asked for, the values of all its (public) supertypes are final.
+     */
     @SuppressWarnings("unchecked")
     protected <T extends Value> T leastOfHierarchy(TypeInfo typeInfo, Property property, T defaultValue, T bestValue) {
-        return typeInfo.recursiveSuperTypeStream()
-                .filter(TypeInfo::isPublic)
+        LeastKey key = new LeastKey(typeInfo, property, defaultValue, bestValue);
+        Value cached = leastOfHierarchy.get(key);
+        if (cached != null) return (T) cached;
+        T least = bestValue;
+        for (TypeInfo superType : superTypeCache.directSuperTypes(typeInfo)) {
+            if (superType.isPublic()) {
+                least = (T) least.min(superType.analysis().getOrDefault(property, defaultValue));
+            }
+            least = (T) least.min(leastOfHierarchy(superType, property, defaultValue, bestValue));
+        }
+        assert least.equals(superTypeCache.distinctPublicSuperTypes(typeInfo).stream()
                 .map(ti -> ti.analysis().getOrDefault(property, defaultValue))
-                .reduce(bestValue, (t1, t2) -> (T) t1.min(t2));
+                .reduce(bestValue, (t1, t2) -> (T) t1.min(t2)));
+        // no computeIfAbsent: the computation is recursive, and can run in parallel
+        leastOfHierarchy.putIfAbsent(key, least);
+        return least;
     }
 
-    protected Map<Property, Value> annotationsToMap(Info info, List<AnnotationExpression> annotations) {
-        Value.Immutable immutable = null;
-        Value.Independent independent = null;
-        Value.NotNull notNull = null;
-        Value.Bool container = null;
-        Value.Bool fluent = null;
-        Value.Bool identity = null;
-        Value.Bool modified = null;
-        Value.Bool ignoreModifications = null;
-        Value.Bool isFinal = null;
-        Value.FieldValue getSetField = null;
-        Value.Bool allowInterrupt = null;
-        Value.GetSetEquivalent getSetEquivalent = null;
-        Value.CommutableData commutableData = null;
-        Value.VariableBooleanMap modifiedComponents = null;
-        Value.Bool staticSideEffects = null;
+    /*
+    The values extracted from the e2immu annotations of one Info object.
+     */
+    private static class AnnotationValues {
+        Value.Immutable immutable;
+        Value.Independent independent;
+        Value.NotNull notNull;
+        Value.Bool container;
+        Value.Bool fluent;
+        Value.Bool identity;
+        Value.Bool modified;
+        Value.Bool ignoreModifications;
+        Value.Bool isFinal;
+        Value.FieldValue getSetField;
+        Value.Bool allowInterrupt;
+        Value.GetSetEquivalent getSetEquivalent;
+        Value.CommutableData commutableData;
+        Value.VariableBooleanMap modifiedComponents;
+        Value.Bool staticSideEffects;
+    }
 
-        for (AnnotationExpression ae : annotations) {
-            boolean isAbsent = ae.extractBoolean("absent");
-            Value.Bool valueForTrue = ValueImpl.BoolImpl.from(!isAbsent);
+    @FunctionalInterface
+    private interface AnnotationHandler {
+        void handle(Info info, AnnotationExpression ae, boolean isAbsent, Value.Bool valueForTrue, AnnotationValues v);
+    }
+
+    private static final AnnotationHandler IGNORE = (info, ae, isAbsent, valueForTrue, v) -> {
+    };
 
-            String fqn = ae.typeInfo().fullyQualifiedName();
-            if (Immutable.class.getCanonicalName().equals(fqn)) {
+    /*
+    One handler per e2immu annotation.
+     */
+    private static final Map<Class<?>, AnnotationHandler> HANDLERS = Map.ofEntries(
+            Map.entry(Immutable.class, (info, ae, isAbsent, valueForTrue, v) -> {
                 if (isAbsent) {
-                    immutable = ValueImpl.ImmutableImpl.MUTABLE;
+                    v.immutable = ValueImpl.ImmutableImpl.MUTABLE;
                 } else {
                     boolean hc = ae.extractBoolean("hc");
-                    immutable = hc ? ValueImpl.ImmutableImpl.IMMUTABLE_HC : ValueImpl.ImmutableImpl.IMMUTABLE;
+                    v.immutable = hc ? ValueImpl.ImmutableImpl.IMMUTABLE_HC : ValueImpl.ImmutableImpl.IMMUTABLE;
                 }
-            } else if (ImmutableContainer.class.getCanonicalName().equals(fqn)) {
+            }),
+            Map.entry(ImmutableContainer.class, (info, ae, isAbsent, valueForTrue, v) -> {
                 if (isAbsent) {
-                    immutable = ValueImpl.ImmutableImpl.MUTABLE;
-                    container = ValueImpl.BoolImpl.FALSE;
+                    v.immutable = ValueImpl.ImmutableImpl.MUTABLE;
+                    v.container = ValueImpl.BoolImpl.FALSE;
                 } else {
                     boolean hc = ae.extractBoolean("hc");
-                    immutable = hc ? ValueImpl.ImmutableImpl.IMMUTABLE_HC : ValueImpl.ImmutableImpl.IMMUTABLE;
-                    container = ValueImpl.BoolImpl.TRUE;
+                    v.immutable = hc ? ValueImpl.ImmutableImpl.IMMUTABLE_HC : ValueImpl.ImmutableImpl.IMMUTABLE;
+                    v.container = ValueImpl.BoolImpl.TRUE;
                 }
-            } else if (FinalFields.class.getCanonicalName().equals(fqn)) {
+            }),
+            Map.entry(FinalFields.class, (info, ae, isAbsent, valueForTrue, v) -> {
                 if (isAbsent) {
-                    immutable = ValueImpl.ImmutableImpl.MUTABLE;
+                    v.immutable = ValueImpl.ImmutableImpl.MUTABLE;
                 } else {
-                    immutable = ValueImpl.ImmutableImpl.FINAL_FIELDS;
+                    v.immutable = ValueImpl.ImmutableImpl.FINAL_FIELDS;
                 }
-            } else if (Container.class.getCanonicalName().equals(fqn)) {
-                container = valueForTrue;
-            } else if (Independent.class.getCanonicalName().equals(fqn)) {
+            }),
+            Map.entry(Container.class,
+                    (info, ae, isAbsent, valueForTrue, v) -> v.container = valueForTrue),
+            Map.entry(Independent.class, (info, ae, isAbsent, valueForTrue, v) -> {
                 if (isAbsent) {
-                    independent = ValueImpl.IndependentImpl.DEPENDENT;
+                    v.independent = ValueImpl.IndependentImpl.DEPENDENT;
                 } else {
                     boolean hc = ae.extractBoolean("hc");
                     int[] dependentParameters = ae.extractIntArray("dependentParameters");
@@ -97,15 +145,16 @@ class CommonAnalyzer {
                     Map<Integer, Integer> map = ValueImpl.IndependentImpl.makeMap(dependentParameters, hcParameters,
                             dependentReturnValue, hcReturnValue);
                     if (map.isEmpty()) {
-                        independent = hc ? ValueImpl.IndependentImpl.INDEPENDENT_HC : ValueImpl.IndependentImpl.INDEPENDENT;
+                        v.independent = hc ? ValueImpl.IndependentImpl.INDEPENDENT_HC : ValueImpl.IndependentImpl.INDEPENDENT;
                     } else {
-                        independent = new ValueImpl.IndependentImpl(hc ? 1 : 0, map);
+                        v.independent = new ValueImpl.IndependentImpl(hc ? 1 : 0, map);
                     }
                 }
-            } else if (NotModified.class.getCanonicalName().equals(fqn)) {
-                modified = ValueImpl.BoolImpl.from(isAbsent);
-            } else if (Modified.class.getCanonicalName().equals(fqn)) {
-                modified = valueForTrue;
+            }),
+            Map.entry(NotModified.class,
+                    (info, ae, isAbsent, valueForTrue, v) -> v.modified = ValueImpl.BoolImpl.from(isAbsent)),
+            Map.entry(Modified.class, (info, ae, isAbsent, valueForTrue, v) -> {
+                v.modified = valueForTrue;
                 String value = ae.extractString("value", "");
                 if (!value.isBlank()) {
                     FieldInfo fieldInfo = info.typeInfo().getFieldByName(value, false);
@@ -113,25 +162,27 @@ class CommonAnalyzer {
                         LOGGER.warn("Cannot find field {} in {}", value, info.typeInfo());
                     } else {
                         FieldReference fr = new FieldReferenceImpl(fieldInfo);
-                        modifiedComponents = new ValueImpl.VariableBooleanMapImpl(Map.of(fr, true));
+                        v.modifiedComponents = new ValueImpl.VariableBooleanMapImpl(Map.of(fr, true));
                     }
                 }
-            } else if (Identity.class.getCanonicalName().equals(fqn)) {
-                identity = valueForTrue;
-            } else if (Fluent.class.getCanonicalName().equals(fqn)) {
-                fluent = valueForTrue;
-            } else if (NotNull.class.getCanonicalName().equals(fqn)) {
+            }),
+            Map.entry(Identity.class,
+                    (info, ae, isAbsent, valueForTrue, v) -> v.identity = valueForTrue),
+            Map.entry(Fluent.class,
+                    (info, ae, isAbsent, valueForTrue, v) -> v.fluent = valueForTrue),
+            Map.entry(NotNull.class, (info, ae, isAbsent, valueForTrue, v) -> {
                 if (isAbsent) {
-                    notNull = ValueImpl.NotNullImpl.NULLABLE;
+                    v.notNull = ValueImpl.NotNullImpl.NULLABLE;
                 } else {
                     boolean content = ae.extractBoolean("content");
-                    notNull = content ? ValueImpl.NotNullImpl.CONTENT_NOT_NULL : ValueImpl.NotNullImpl.NOT_NULL;
+                    v.notNull = content ? ValueImpl.NotNullImpl.CONTENT_NOT_NULL : ValueImpl.NotNullImpl.NOT_NULL;
                 }
-            } else if (Final.class.getCanonicalName().equals(fqn)) {
-                isFinal = valueForTrue;
-            } else if (IgnoreModifications.class.getCanonicalName().equals(fqn)) {
-                ignoreModifications = valueForTrue;
-            } else if (GetSet.class.getCanonicalName().equals(fqn)) {
+            }),
+            Map.entry(Final.class,
+                    (info, ae, isAbsent, valueForTrue, v) -> v.isFinal = valueForTrue),
+            Map.entry(IgnoreModifications.class,
+                    (info, ae, isAbsent, valueForTrue, v) -> v.ignoreModifications = valueForTrue),
+            Map.entry(GetSet.class, (info, ae, isAbsent, valueForTrue, v) -> {
                 if (info instanceof MethodInfo methodInfo) {
                     boolean equivalent = ae.extractBoolean("equivalent");
                     if (methodInfo.isConstructor() || methodInfo.isFactoryMethod() || equivalent) {
@@ -148,7 +199,7 @@ class CommonAnalyzer {
                             candidateStream = methodInfo.typeInfo().methodStream()
                                     .filter(m -> m.name().equals(methodInfo.name()));
                         }
-                        getSetEquivalent = findBestCompatibleMethod(candidateStream, methodInfo);
+                        v.getSetEquivalent = findBestCompatibleMethod(candidateStream, methodInfo);
                     } else {
                         String name = ae.extractString("value", GetSetHelper.fieldName(methodInfo.name()));
                         FieldInfo field = methodInfo.typeInfo().getFieldByName(name, false);
@@ -157,88 +208,130 @@ class CommonAnalyzer {
                         } else {
                             boolean setter = methodInfo.isVoid() || GetSetUtil.isComputeFluent(methodInfo);
                             int parameterIndexOfIndex = GetSetUtil.parameterIndexOfIndex(methodInfo, setter);
-                            getSetField = new ValueImpl.GetSetValueImpl(field, setter, parameterIndexOfIndex);
+                            v.getSetField = new ValueImpl.GetSetValueImpl(field, setter, parameterIndexOfIndex);
                         }
                     }
                 }
-            } else if (Commutable.class.getCanonicalName().equalsIgnoreCase(fqn)) {
-                if (info instanceof MethodInfo methodInfo) {
+            }),
+            Map.entry(Commutable.class, (info, ae, isAbsent, valueForTrue, v) -> {
+                if (info instanceof MethodInfo) {
                     String seq = ae.extractString("seq", "");
                     String par = ae.extractString("par", "");
                     String multi = ae.extractString("multi", "");
-                    commutableData = new ValueImpl.CommutableDataImpl(seq, par, multi);
+                    v.commutableData = new ValueImpl.CommutableDataImpl(seq, par, multi);
                 }
-            } else if (UtilityClass.class.getCanonicalName().equals(fqn)) {
-                immutable = ValueImpl.ImmutableImpl.IMMUTABLE;
-                independent = ValueImpl.IndependentImpl.INDEPENDENT;
+            }),
+            Map.entry(UtilityClass.class, (info, ae, isAbsent, valueForTrue, v) -> {
+                v.immutable = ValueImpl.ImmutableImpl.IMMUTABLE;
+                v.independent = ValueImpl.IndependentImpl.INDEPENDENT;
                 //extensible = ValueImpl.BoolImpl.FALSE;
-            } else if (AllowsInterrupt.class.getCanonicalName().equals(fqn)) {
-                allowInterrupt = valueForTrue;
-            } else if (StaticSideEffects.class.getCanonicalName().equals(fqn)) {
-                staticSideEffects = valueForTrue;
+            }),
+            Map.entry(AllowsInterrupt.class,
+                    (info, ae, isAbsent, valueForTrue, v) -> v.allowInterrupt = valueForTrue),
+            Map.entry(StaticSideEffects.class,
+                    (info, ae, isAbsent, valueForTrue, v) -> v.staticSideEffects = valueForTrue));
+
+    private static final Map<String, AnnotationHandler> HANDLERS_BY_NAME = HANDLERS.entrySet().stream()
+            .collect(Collectors.toUnmodifiableMap(e -> e.getKey().getCanonicalName(), Map.Entry::getValue));
+
+    /*
+    The dispatch table keyed by the annotation's TypeInfo, resolved once per Runtime. All analyzers working
+    on the same Runtime share it; it is never modified after construction.
+     */
+    private static final Map<Runtime, Map<TypeInfo, AnnotationHandler>> HANDLERS_PER_RUNTIME =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    private static Map<TypeInfo, AnnotationHandler> handlers(Runtime runtime) {
+        if (runtime == null) return Map.of();
+        return HANDLERS_PER_RUNTIME.computeIfAbsent(runtime, CommonAnalyzer::resolveHandlers);
+    }
+
+    private static Map<TypeInfo, AnnotationHandler> resolveHandlers(Runtime runtime) {
+        Map<TypeInfo, AnnotationHandler> map = new IdentityHashMap<>();
+        HANDLERS.forEach((clazz, handler) -> {
+            TypeInfo typeInfo = runtime.getFullyQualified(clazz, false);
+            if (typeInfo != null) map.put(typeInfo, handler);
+        });
+        return Collections.unmodifiableMap(map);
+    }
+
+    private AnnotationHandler handler(TypeInfo annotationType) {
+        AnnotationHandler handler = handlers.get(annotationType);
+        if (handler != null) return handler;
+        // no Runtime, or the annotation type was not known to it when the table was built
+        return HANDLERS_BY_NAME.getOrDefault(annotationType.fullyQualifiedName(), IGNORE);
+    }
+
+    protected Map<Property, Value> annotationsToMap(Info info, List<AnnotationExpression> annotations) {
+        AnnotationValues v = new AnnotationValues();
+        for (AnnotationExpression ae : annotations) {
+            AnnotationHandler handler = handler(ae.typeInfo());
+            if (handler != IGNORE) {
+                boolean isAbsent = ae.extractBoolean("absent");
+                handler.handle(info, ae, isAbsent, ValueImpl.BoolImpl.from(!isAbsent), v);
             }
         }
 
-        if (independent == null && info instanceof TypeInfo typeInfo) {
-            independent = simpleComputeIndependent(typeInfo, immutable);
+        if (v.independent == null && info instanceof TypeInfo typeInfo) {
+            v.independent = simpleComputeIndependent(typeInfo, v.immutable);
         }
         Map<Property, Value> map = new HashMap<>();
 
         if (info instanceof TypeInfo) {
-            if (immutable != null) map.put(PropertyImpl.IMMUTABLE_TYPE, immutable);
-            if (independent != null) {
-                assert independent.linkToParametersReturnValue().isEmpty();
-                map.put(PropertyImpl.INDEPENDENT_TYPE, independent);
+            if (v.immutable != null) map.put(PropertyImpl.IMMUTABLE_TYPE, v.immutable);
+            if (v.independent != null) {
+                assert v.independent.linkToParametersReturnValue().isEmpty();
+                map.put(PropertyImpl.INDEPENDENT_TYPE, v.independent);
             }
-            if (container != null) map.put(PropertyImpl.CONTAINER_TYPE, container);
+            if (v.container != null) map.put(PropertyImpl.CONTAINER_TYPE, v.container);
             return map;
         }
         if (info instanceof MethodInfo) {
-            if (fluent != null) map.put(PropertyImpl.FLUENT_METHOD, fluent);
-            if (identity != null) map.put(PropertyImpl.IDENTITY_METHOD, identity);
-            if (getSetField != null) map.put(PropertyImpl.GET_SET_FIELD, getSetField);
-            if (immutable != null) map.put(PropertyImpl.IMMUTABLE_METHOD, immutable);
-            if (independent != null) {
-                assert independent.linkToParametersReturnValue().isEmpty();
-                map.put(PropertyImpl.INDEPENDENT_METHOD, independent);
+            if (v.fluent != null) map.put(PropertyImpl.FLUENT_METHOD, v.fluent);
+            if (v.identity != null) map.put(PropertyImpl.IDENTITY_METHOD, v.identity);
+            if (v.getSetField != null) map.put(PropertyImpl.GET_SET_FIELD, v.getSetField);
+            if (v.immutable != null) map.put(PropertyImpl.IMMUTABLE_METHOD, v.immutable);
+            if (v.independent != null) {
+                assert v.independent.linkToParametersReturnValue().isEmpty();
+                map.put(PropertyImpl.INDEPENDENT_METHOD, v.independent);
             }
-            if (container != null) map.put(PropertyImpl.CONTAINER_METHOD, container);
-            if (notNull != null) map.put(PropertyImpl.NOT_NULL_METHOD, notNull);
-            if (modified != null) map.put(PropertyImpl.MODIFIED_METHOD, modified);
-            if (allowInterrupt != null) map.put(PropertyImpl.METHOD_ALLOWS_INTERRUPTS, allowInterrupt);
-            if (staticSideEffects != null) map.put(PropertyImpl.STATIC_SIDE_EFFECTS_METHOD, staticSideEffects);
-            if (getSetEquivalent != null) map.put(PropertyImpl.GET_SET_EQUIVALENT, getSetEquivalent);
-            if (commutableData != null) map.put(PropertyImpl.COMMUTABLE_METHODS, commutableData);
-            if (modifiedComponents != null) map.put(PropertyImpl.MODIFIED_COMPONENTS_METHOD, modifiedComponents);
+            if (v.container != null) map.put(PropertyImpl.CONTAINER_METHOD, v.container);
+            if (v.notNull != null) map.put(PropertyImpl.NOT_NULL_METHOD, v.notNull);
+            if (v.modified != null) map.put(PropertyImpl.MODIFIED_METHOD, v.modified);
+            if (v.allowInterrupt != null) map.put(PropertyImpl.METHOD_ALLOWS_INTERRUPTS, v.allowInterrupt);
+            if (v.staticSideEffects != null) map.put(PropertyImpl.STATIC_SIDE_EFFECTS_METHOD, v.staticSideEffects);
+            if (v.getSetEquivalent != null) map.put(PropertyImpl.GET_SET_EQUIVALENT, v.getSetEquivalent);
+            if (v.commutableData != null) map.put(PropertyImpl.COMMUTABLE_METHODS, v.commutableData);
+            if (v.modifiedComponents != null) map.put(PropertyImpl.MODIFIED_COMPONENTS_METHOD, v.modifiedComponents);
             return map;
         }
         if (info instanceof FieldInfo) {
-            if (immutable != null) map.put(PropertyImpl.IMMUTABLE_FIELD, immutable);
-            if (independent != null) {
-                assert independent.linkToParametersReturnValue().isEmpty();
-                map.put(PropertyImpl.INDEPENDENT_FIELD, independent);
+            if (v.immutable != null) map.put(PropertyImpl.IMMUTABLE_FIELD, v.immutable);
+            if (v.independent != null) {
+                assert v.independent.linkToParametersReturnValue().isEmpty();
+                map.put(PropertyImpl.INDEPENDENT_FIELD, v.independent);
             }
-            if (container != null) map.put(PropertyImpl.CONTAINER_FIELD, container);
-            if (notNull != null) map.put(PropertyImpl.NOT_NULL_FIELD, notNull);
-            if (modified != null) map.put(PropertyImpl.MODIFIED_FIELD, modified);
-            if (isFinal != null) map.put(PropertyImpl.FINAL_FIELD, isFinal);
-            if (ignoreModifications != null) map.put(PropertyImpl.IGNORE_MODIFICATIONS_FIELD, ignoreModifications);
+            if (v.container != null) map.put(PropertyImpl.CONTAINER_FIELD, v.container);
+            if (v.notNull != null) map.put(PropertyImpl.NOT_NULL_FIELD, v.notNull);
+            if (v.modified != null) map.put(PropertyImpl.MODIFIED_FIELD, v.modified);
+            if (v.isFinal != null) map.put(PropertyImpl.FINAL_FIELD, v.isFinal);
+            if (v.ignoreModifications != null) map.put(PropertyImpl.IGNORE_MODIFICATIONS_FIELD, v.ignoreModifications);
             return map;
         }
         if (info instanceof ParameterInfo) {
-            if (immutable != null) map.put(PropertyImpl.IMMUTABLE_PARAMETER, immutable);
-            if (independent != null) map.put(PropertyImpl.INDEPENDENT_PARAMETER, independent);
-            if (container != null) map.put(PropertyImpl.CONTAINER_PARAMETER, container);
-            if (notNull != null) map.put(PropertyImpl.NOT_NULL_PARAMETER, notNull);
-            if (modified != null) map.put(PropertyImpl.MODIFIED_PARAMETER, modified);
-            if (ignoreModifications != null) map.put(PropertyImpl.IGNORE_MODIFICATIONS_PARAMETER, ignoreModifications);
-            if (modifiedComponents != null) map.put(PropertyImpl.MODIFIED_COMPONENTS_PARAMETER, modifiedComponents);
+            if (v.immutable != null) map.put(PropertyImpl.IMMUTABLE_PARAMETER, v.immutable);
+            if (v.independent != null) map.put(PropertyImpl.INDEPENDENT_PARAMETER, v.independent);
+            if (v.container != null) map.put(PropertyImpl.CONTAINER_PARAMETER, v.container);
+            if (v.notNull != null) map.put(PropertyImpl.NOT_NULL_PARAMETER, v.notNull);
+            if (v.modified != null) map.put(PropertyImpl.MODIFIED_PARAMETER, v.modified);
+            if (v.ignoreModifications != null) map.put(PropertyImpl.IGNORE_MODIFICATIONS_PARAMETER, v.ignoreModifications);
+            if (v.modifiedComponents != null) map.put(PropertyImpl.MODIFIED_COMPONENTS_PARAMETER, v.modifiedComponents);
             return map;
         }
         throw new UnsupportedOperationException();
     }
 
-    private Value.GetSetEquivalent findBestCompatibleMethod(Stream<MethodInfo> candidateStream, MethodInfo target) {
+    private static Value.GetSetEquivalent findBestCompatibleMethod(Stream<MethodInfo> candidateStream, MethodInfo target) {
         return candidateStream
                 .map(mi -> createGetSetEquivalent(mi, target))
                 .filter(Objects::nonNull)
@@ -249,7 +342,7 @@ class CommonAnalyzer {
     /*
     return null when not compatible.
      */
-    private Value.GetSetEquivalent createGetSetEquivalent(MethodInfo candidate, MethodInfo target) {
+    private static Value.GetSetEquivalent createGetSetEquivalent(MethodInfo candidate, MethodInfo target) {
         if (candidate.parameters().size() >= target.parameters().size()) return null;
         Set<ParameterInfo> params = new HashSet<>(target.parameters());
         for (ParameterInfo pi : candidate.parameters()) {
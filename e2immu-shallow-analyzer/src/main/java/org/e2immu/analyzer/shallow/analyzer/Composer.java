@@ -33,13 +33,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
+import java.io.InterruptedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 
@@ -99,9 +104,14 @@ public class Composer {
         this.importComputer = importComputer;
     }
 
-    public Collection<TypeInfo> compose(Collection<TypeInfo> primaryTypes) {
+    private SourceSet javaBaseSourceSet() {
         SourceSet javaBase = javaInspector.compiledTypesManager().get(AutoCloseable.class).compilationUnit().sourceSet();
         if (javaBase == null || !javaBase.name().equals("java.base")) throw new RuntimeException("?");
+        return javaBase;
+    }
+
+    public Collection<TypeInfo> compose(Collection<TypeInfo> primaryTypes) {
+        SourceSet javaBase = javaBaseSourceSet();
 
         Map<String, TypeInfo> typesPerPackage = new HashMap<>();
         for (TypeInfo primaryType : primaryTypes) {
@@ -110,7 +120,7 @@ public class Composer {
                 String packageName = primaryType.packageName();
                 TypeInfo packageType = typesPerPackage.computeIfAbsent(packageName,
                         pn -> newPackageType(Objects.requireNonNullElse(primaryType.compilationUnit().sourceSet(), javaBase), pn));
-                appendType(packageType, primaryType, null);
+                appendType(packageType, primaryType, null, translateFromDollarToReal);
             }
         }
         List<TypeInfo> allTypes = typesPerPackage.values().stream().toList();
@@ -118,31 +128,31 @@ public class Composer {
         return allTypes;
     }
 
-    private void appendType(TypeInfo parentType, TypeInfo typeInfo, TranslationMap tm) {
+    private void appendType(TypeInfo parentType, TypeInfo typeInfo, TranslationMap tm, Map<Info, Info> dollarToReal) {
         if (!acceptTypeOrAnySubType(typeInfo)) return;
         TypeTm newTypeTm = createType(parentType, typeInfo, tm);
         TypeInfo newType = newTypeTm.typeInfo;
 
-        translateFromDollarToReal.put(newType, typeInfo);
+        dollarToReal.put(newType, typeInfo);
 
         newType.builder().addComment(addCommentLine(typeInfo));
 
         for (TypeInfo subType : typeInfo.subTypes()) {
-            appendType(newType, subType, newTypeTm.tm);
+            appendType(newType, subType, newTypeTm.tm, dollarToReal);
         }
         for (FieldInfo fieldInfo : typeInfo.fields()) {
             if (fieldInfo.access().isPublic() && predicate.test(fieldInfo)) {
                 FieldInfo newField = createField(fieldInfo, newType);
-                translateFromDollarToReal.put(newField, fieldInfo);
+                dollarToReal.put(newField, fieldInfo);
                 newType.builder().addField(newField);
             }
         }
         for (MethodInfo constructor : typeInfo.constructors()) {
             if (constructor.isPublic() && !constructor.isSynthetic() && predicate.test(constructor)) {
                 MethodInfo newConstructor = createMethod(constructor, newType, newTypeTm.tm);
-                translateFromDollarToReal.put(newConstructor, constructor);
+                dollarToReal.put(newConstructor, constructor);
                 newConstructor.parameters().forEach(newPi ->
-                        translateFromDollarToReal.put(newPi, constructor.parameters().get(newPi.index())));
+                        dollarToReal.put(newPi, constructor.parameters().get(newPi.index())));
                 newType.builder().addMethod(newConstructor);
             }
         }
@@ -154,9 +164,9 @@ public class Composer {
                 && methodInfo.parameters().stream().allMatch(p -> validJavaName(p.name()) != null)
             ) {
                 MethodInfo newMethod = createMethod(methodInfo, newType, newTypeTm.tm);
-                translateFromDollarToReal.put(newMethod, methodInfo);
+                dollarToReal.put(newMethod, methodInfo);
                 newMethod.parameters().forEach(newPi ->
-                        translateFromDollarToReal.put(newPi, methodInfo.parameters().get(newPi.index())));
+                        dollarToReal.put(newPi, methodInfo.parameters().get(newPi.index())));
                 newType.builder().addMethod(newMethod);
             }
         }
@@ -358,26 +368,154 @@ public class Composer {
     public void write(Collection<TypeInfo> apiTypes,
                       File base,
                       Qualification.Decorator decorator) throws IOException {
-        int count = 0;
+        write(apiTypes, base, () -> decorator, null);
+    }
+
+    /*
+    decoratorSupplier: called once for each file. DecoratorImpl collects the imports of the types it decorates,
+    so a new decorator per file gives each file exactly its own imports, also when printing in parallel.
+    executor: when not null, the types are printed and written in parallel. The content of each file is the same
+    as in sequential mode. The caller remains responsible for shutting the executor down.
+
+    Returns the number of files written.
+     */
+    public int write(Collection<TypeInfo> apiTypes,
+                     File base,
+                     Supplier<Qualification.Decorator> decoratorSupplier,
+                     ExecutorService executor) throws IOException {
+        List<TypeInfo> toWrite = new ArrayList<>();
         for (TypeInfo apiType : apiTypes) {
             assert apiType.isPrimaryType() && apiType.hasBeenInspected();
             if (apiType.packageName() == null) {
                 LOGGER.error("Empty package for {}", apiType);
             } else {
-                String convertedPackage = apiType.packageName().replace(".", "/");
-                File directory = new File(base, convertedPackage);
+                toWrite.add(apiType);
+            }
+        }
+        // create the directories up front, rather than concurrently
+        for (File directory : toWrite.stream().map(apiType -> directory(base, apiType)).distinct().toList()) {
+            if (directory.mkdirs()) {
+                LOGGER.info("Created annotated API destination package folder '{}'", directory.getAbsolutePath());
+            }
+        }
+        if (executor == null) {
+            for (TypeInfo apiType : toWrite) {
+                write(apiType, base, decoratorSupplier.get());
+            }
+        } else {
+            List<Future<?>> futures = toWrite.stream()
+                    .<Future<?>>map(apiType -> executor.submit(() -> {
+                        write(apiType, base, decoratorSupplier.get());
+                        return null;
+                    }))
+                    .toList();
+            for (Future<?> future : futures) {
+                await(future, futures);
+            }
+        }
+        LOGGER.info("Wrote {} files", toWrite.size());
+        return toWrite.size();
+    }
+
+    // on failure, cancels the other tasks
+    private static void await(Future<?> future, Collection<Future<?>> futures) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(f -> f.cancel(true));
+            throw new InterruptedIOException("Interrupted while writing annotated API files");
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            if (e.getCause() instanceof IOException ioe) throw ioe;
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /*
+    Streaming alternative to compose() followed by write(), for jars with many types: composes, prints and writes
+    one package at a time. The composed package type and its translation map are dropped as soon as its file has
+    been written; only the real primary types, grouped per package, are held for the whole run. The dollar-to-real
+    mapping of each package is reported to 'dollarToReal', on the calling thread, rather than kept in
+    translateFromDollarToReal().
+
+    decoratorFactory: creates the decorator of one file, given the translation map of its package,
+    e.g. DecoratorImpl.Factory::newDecorator.
+    executor: when not null, packages are printed and written in parallel while the next ones are being composed.
+    maxPackagesInFlight bounds the number of composed packages alive at any time, including the one being composed:
+    when that many are waiting to be written, we wait for the oldest before composing the next one. With a bound of
+    one, composing and writing do not overlap. In sequential mode, there is always exactly one. When composing or
+    writing fails, the packages in flight are cancelled. The caller remains responsible for shutting the executor
+    down.
+
+    Returns the number of files written.
+     */
+    public int composeAndWrite(Collection<TypeInfo> primaryTypes,
+                               File base,
+                               Function<Map<Info, Info>, Qualification.Decorator> decoratorFactory,
+                               BiConsumer<Info, Info> dollarToReal,
+                               ExecutorService executor,
+                               int maxPackagesInFlight) throws IOException {
+        if (maxPackagesInFlight < 1) throw new IllegalArgumentException("Need at least one package in flight");
+        SourceSet javaBase = javaBaseSourceSet();
+        Map<String, List<TypeInfo>> typesPerPackage = new TreeMap<>();
+        for (TypeInfo primaryType : primaryTypes) {
+            if (acceptTypeOrAnySubType(primaryType)) {
+                assert primaryType.isPrimaryType();
+                typesPerPackage.computeIfAbsent(primaryType.packageName(), pn -> new ArrayList<>()).add(primaryType);
+            }
+        }
+        Deque<Future<?>> inFlight = new ArrayDeque<>();
+        try {
+            for (Map.Entry<String, List<TypeInfo>> entry : typesPerPackage.entrySet()) {
+                if (inFlight.size() == maxPackagesInFlight) {
+                    await(inFlight.removeFirst(), inFlight);
+                }
+                List<TypeInfo> types = entry.getValue();
+                Map<Info, Info> translate = new HashMap<>();
+                SourceSet sourceSet = Objects.requireNonNullElse(types.getFirst().compilationUnit().sourceSet(),
+                        javaBase);
+                TypeInfo packageType = newPackageType(sourceSet, entry.getKey());
+                for (TypeInfo primaryType : types) {
+                    appendType(packageType, primaryType, null, translate);
+                }
+                packageType.builder().commit();
+                translate.forEach(dollarToReal);
+
+                File directory = directory(base, packageType);
                 if (directory.mkdirs()) {
                     LOGGER.info("Created annotated API destination package folder '{}'", directory.getAbsolutePath());
                 }
-                File outputFile = new File(directory, apiType.simpleName() + ".java");
-                try (OutputStreamWriter outputStreamWriter = new OutputStreamWriter(new FileOutputStream(outputFile),
-                        StandardCharsets.UTF_8)) {
-                    outputStreamWriter.write(javaInspector.print2(apiType, decorator, importComputer));
+                if (executor == null) {
+                    write(packageType, base, decoratorFactory.apply(translate));
+                } else {
+                    inFlight.add(executor.submit(() -> {
+                        write(packageType, base, decoratorFactory.apply(translate));
+                        return null;
+                    }));
                 }
-                LOGGER.info("Wrote {}", apiType);
-                ++count;
             }
+            while (!inFlight.isEmpty()) {
+                await(inFlight.removeFirst(), inFlight);
+            }
+        } catch (IOException | RuntimeException | Error e) {
+            inFlight.forEach(f -> f.cancel(true));
+            throw e;
         }
-        LOGGER.info("Wrote {} files", count);
+        LOGGER.info("Wrote {} files", typesPerPackage.size());
+        return typesPerPackage.size();
+    }
+
+    private static File directory(File base, TypeInfo apiType) {
+        return new File(base, apiType.packageName().replace(".", "/"));
+    }
+
+    // printed in memory first, and then written in one go
+    private void write(TypeInfo apiType, File base, Qualification.Decorator decorator) throws IOException {
+        File outputFile = new File(directory(base, apiType), apiType.simpleName() + ".java");
+        String source = javaInspector.print2(apiType, decorator, importComputer);
+        Files.writeString(outputFile.toPath(), source, StandardCharsets.UTF_8);
+        LOGGER.info("Wrote {}", apiType);
     }
 }
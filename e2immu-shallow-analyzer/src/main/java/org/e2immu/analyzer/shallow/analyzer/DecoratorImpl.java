@@ -22,18 +22,58 @@ import static org.e2immu.language.cst.impl.analysis.ValueImpl.BoolImpl.FALSE;
 import static org.e2immu.language.cst.impl.analysis.ValueImpl.ImmutableImpl.MUTABLE;
 import static org.e2immu.language.cst.impl.analysis.ValueImpl.IndependentImpl.DEPENDENT;
 
+/*
+A decorator collects the imports of the annotations it adds, so one decorator should be used per compilation unit,
+and not be shared between threads. What does not depend on the compilation unit (the annotation types, the
+prebuilt annotation expressions, and the cache of the analysis helper) lives in a Factory, which can be shared.
+ */
 public class DecoratorImpl implements Qualification.Decorator {
+
+    /*
+    Thread-safe; create one per Runtime, after the analysis, when the type-level properties no longer change.
+     */
+    public static class Factory {
+        private final Runtime runtime;
+        private final AnalysisHelper analysisHelper;
+        private final AnnotationExpression modifiedAnnotation;
+        private final TypeInfo modifiedTi;
+        private final TypeInfo immutableTi;
+        private final TypeInfo independentTi;
+        private final TypeInfo finalTi;
+        private final TypeInfo immutableContainerTi;
+        private final AnnotationExpression identityAnnotation;
+        private final AnnotationExpression finalAnnotation;
+        private final AnnotationExpression containerAnnotation;
+
+        public Factory(Runtime runtime) {
+            this.runtime = runtime;
+            analysisHelper = new AnalysisHelper(AnalysisHelper.DEFAULT_CACHE_SIZE);
+            modifiedTi = runtime.getFullyQualified(Modified.class, true);
+            modifiedAnnotation = runtime.newAnnotationExpressionBuilder().setTypeInfo(modifiedTi).build();
+            independentTi = runtime.getFullyQualified(Independent.class, true);
+            immutableTi = runtime.getFullyQualified(Immutable.class, true);
+            finalTi = runtime.getFullyQualified(Final.class, true);
+            TypeInfo containerTi = runtime.getFullyQualified(Container.class, true);
+            immutableContainerTi = runtime.getFullyQualified(ImmutableContainer.class, true);
+            finalAnnotation = runtime.newAnnotationExpressionBuilder().setTypeInfo(finalTi).build();
+            containerAnnotation = runtime.newAnnotationExpressionBuilder().setTypeInfo(containerTi).build();
+            TypeInfo identityTi = runtime.getFullyQualified(Identity.class, true);
+            identityAnnotation = runtime.newAnnotationExpressionBuilder().setTypeInfo(identityTi).build();
+        }
+
+        public DecoratorImpl newDecorator() {
+            return new DecoratorImpl(this, null);
+        }
+
+        // translationMap: from the composed infos to the real ones, see Composer.translateFromDollarToReal()
+        public DecoratorImpl newDecorator(Map<Info, Info> translationMap) {
+            return new DecoratorImpl(this, translationMap);
+        }
+    }
+
+    private final Factory factory;
     private final Runtime runtime;
-    private final AnalysisHelper analysisHelper;
-    private final AnnotationExpression modifiedAnnotation;
-    private final TypeInfo modifiedTi;
-    private final TypeInfo immutableTi;
-    private final TypeInfo independentTi;
-    private final TypeInfo finalTi;
-    private final TypeInfo immutableContainerTi;
-    private final AnnotationExpression identityAnnotation;
-    private final AnnotationExpression finalAnnotation;
-    private final AnnotationExpression containerAnnotation;
+    private final Map<Info, Info> translationMap;
 
     private boolean needContainerImport;
     private boolean needModifiedImport;
@@ -43,26 +83,17 @@ public class DecoratorImpl implements Qualification.Decorator {
     private boolean needImmutableContainerImport;
     private boolean needIdentityImport;
 
-    private final Map<Info, Info> translationMap;
-
     public DecoratorImpl(Runtime runtime) {
         this(runtime, null);
     }
 
     public DecoratorImpl(Runtime runtime, Map<Info, Info> translationMap) {
-        this.runtime = runtime;
-        analysisHelper = new AnalysisHelper();
-        modifiedTi = runtime.getFullyQualified(Modified.class, true);
-        modifiedAnnotation = runtime.newAnnotationExpressionBuilder().setTypeInfo(modifiedTi).build();
-        independentTi = runtime.getFullyQualified(Independent.class, true);
-        immutableTi = runtime.getFullyQualified(Immutable.class, true);
-        finalTi = runtime.getFullyQualified(Final.class, true);
-        TypeInfo containerTi = runtime.getFullyQualified(Container.class, true);
-        immutableContainerTi = runtime.getFullyQualified(ImmutableContainer.class, true);
-        finalAnnotation = runtime.newAnnotationExpressionBuilder().setTypeInfo(finalTi).build();
-        containerAnnotation = runtime.newAnnotationExpressionBuilder().setTypeInfo(containerTi).build();
-        TypeInfo identityTi = runtime.getFullyQualified(Identity.class, true);
-        identityAnnotation = runtime.newAnnotationExpressionBuilder().setTypeInfo(identityTi).build();
+        this(new Factory(runtime), translationMap);
+    }
+
+    protected DecoratorImpl(Factory factory, Map<Info, Info> translationMap) {
+        this.factory = factory;
+        this.runtime = factory.runtime;
         this.translationMap = translationMap;
     }
 
@@ -127,19 +158,19 @@ public class DecoratorImpl implements Qualification.Decorator {
         List<AnnotationExpression> list = new ArrayList<>();
         if (isFinal) {
             needFinalImport = true;
-            list.add(finalAnnotation);
+            list.add(factory.finalAnnotation);
         }
         if(isIdentity) {
             needIdentityImport = true;
-            list.add(identityAnnotation);
+            list.add(factory.identityAnnotation);
         }
         if (immutable != null && !immutable.isMutable()) {
             TypeInfo ti;
             if (isContainer) {
-                ti = immutableContainerTi;
+                ti = factory.immutableContainerTi;
                 this.needImmutableContainerImport = true;
             } else {
-                ti = immutableTi;
+                ti = factory.immutableTi;
                 this.needImmutableImport = true;
             }
             AnnotationExpression.Builder b = runtime.newAnnotationExpressionBuilder().setTypeInfo(ti);
@@ -149,11 +180,11 @@ public class DecoratorImpl implements Qualification.Decorator {
             list.add(b.build());
         } else if (isContainer) {
             needContainerImport = true;
-            list.add(containerAnnotation);
+            list.add(factory.containerAnnotation);
         }
         if (independent != null && !independent.isDependent()) {
             this.needIndependentImport = true;
-            AnnotationExpression.Builder b = runtime.newAnnotationExpressionBuilder().setTypeInfo(independentTi);
+            AnnotationExpression.Builder b = runtime.newAnnotationExpressionBuilder().setTypeInfo(factory.independentTi);
             if (independent.isIndependentHc()) {
                 b.addKeyValuePair("hc", runtime.constantTrue());
             }
@@ -161,7 +192,7 @@ public class DecoratorImpl implements Qualification.Decorator {
         }
         if (modified) {
             this.needModifiedImport = true;
-            list.add(modifiedAnnotation);
+            list.add(factory.modifiedAnnotation);
         }
         return list;
     }
@@ -169,7 +200,7 @@ public class DecoratorImpl implements Qualification.Decorator {
     // we're only showing INDEPENDENT when both the type and the current type are not immutable (hc or not).
     private Value.Independent nonTrivialIndependent(Value.Independent independent, TypeInfo currentType, ParameterizedType parameterizedType) {
         if (parameterizedType.isVoidOrJavaLangVoid() || parameterizedType.isPrimitiveStringClass()) return null;
-        Value.Immutable immutable = analysisHelper.typeImmutable(currentType, parameterizedType);
+        Value.Immutable immutable = factory.analysisHelper.typeImmutable(currentType, parameterizedType);
         if (immutable.isAtLeastImmutableHC()) return null; // no need
         Value.Immutable immutableCurrent = currentType.analysis().getOrDefault(IMMUTABLE_TYPE, MUTABLE);
         if (immutableCurrent.isAtLeastImmutableHC()) return null; // no need
@@ -186,25 +217,25 @@ public class DecoratorImpl implements Qualification.Decorator {
     public List<ImportStatement> importStatements() {
         List<ImportStatement> list = new ArrayList<>();
         if (needContainerImport) {
-            list.add(runtime.newImportStatementBuilder().setImport(containerAnnotation.typeInfo().fullyQualifiedName()).build());
+            list.add(runtime.newImportStatementBuilder().setImport(factory.containerAnnotation.typeInfo().fullyQualifiedName()).build());
         }
         if (needFinalImport) {
-            list.add(runtime.newImportStatementBuilder().setImport(finalTi.fullyQualifiedName()).build());
+            list.add(runtime.newImportStatementBuilder().setImport(factory.finalTi.fullyQualifiedName()).build());
         }
         if(needIdentityImport) {
-            list.add(runtime.newImportStatementBuilder().setImport(identityAnnotation.typeInfo().fullyQualifiedName()).build());
+            list.add(runtime.newImportStatementBuilder().setImport(factory.identityAnnotation.typeInfo().fullyQualifiedName()).build());
         }
         if (needIndependentImport) {
-            list.add(runtime.newImportStatementBuilder().setImport(independentTi.fullyQualifiedName()).build());
+            list.add(runtime.newImportStatementBuilder().setImport(factory.independentTi.fullyQualifiedName()).build());
         }
         if (needImmutableImport) {
-            list.add(runtime.newImportStatementBuilder().setImport(immutableTi.fullyQualifiedName()).build());
+            list.add(runtime.newImportStatementBuilder().setImport(factory.immutableTi.fullyQualifiedName()).build());
         }
         if (needImmutableContainerImport) {
-            list.add(runtime.newImportStatementBuilder().setImport(immutableContainerTi.fullyQualifiedName()).build());
+            list.add(runtime.newImportStatementBuilder().setImport(factory.immutableContainerTi.fullyQualifiedName()).build());
         }
         if (needModifiedImport) {
-            list.add(runtime.newImportStatementBuilder().setImport(modifiedTi.fullyQualifiedName()).build());
+            list.add(runtime.newImportStatementBuilder().setImport(factory.modifiedTi.fullyQualifiedName()).build());
         }
         return list;
     }
@@ -32,6 +32,13 @@ public class DetectJREs {
     private static final Logger LOGGER = LoggerFactory.getLogger(DetectJREs.class);
 
     public static Map<String, String> loadJreMapping(List<ToolChain.JRE> jreList) {
+        return loadJreMapping().entrySet().stream()
+                .filter(e -> jreList.stream().anyMatch(jre -> jre.shortName().equals(e.getKey())))
+                .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    // all entries, also those of JREs that have not been detected
+    public static Map<String, String> loadJreMapping() {
         String home = System.getProperty("user.home");
         File file = new File(home + File.separator + ".e2immu.jremap");
         if (file.canRead()) {
@@ -39,7 +46,6 @@ public class DetectJREs {
                 Properties properties = new Properties();
                 properties.load(is);
                 Map<String, String> map = properties.entrySet().stream()
-                        .filter(e -> jreList.stream().anyMatch(jre -> jre.shortName().equals(e.getKey())))
                         .collect(Collectors.toUnmodifiableMap(e -> (String) e.getKey(),
                                 e -> (String) e.getValue()));
                 LOGGER.info("JRE mapping: {}", map);
@@ -86,20 +92,29 @@ public class DetectJREs {
         List<ToolChain.JRE> list = new ArrayList<>();
         for (String line : lines.split("\n")) {
             if (!line.isBlank()) {
-                Matcher m = UBUNTU.matcher(line);
-                if (m.matches()) {
-                    String version = m.group(1);
-                    int mainVersion = Integer.parseInt(version);
-                    String vendor = m.group(2);
-                    String shortName = vendor + "-" + version;
-                    ToolChain.JRE jre = new ToolChain.JRE(mainVersion, version, vendor, line, shortName);
-                    list.add(jre);
-                }
+                ToolChain.JRE jre = parseLinuxLine(line);
+                if (jre != null) list.add(jre);
             }
         }
         return List.copyOf(list);
     }
 
+    // null when the path of the java executable does not follow the Ubuntu convention
+    static ToolChain.JRE parseLinuxLine(String line) {
+        Matcher m = UBUNTU.matcher(line);
+        if (!m.matches()) return null;
+        String version = m.group(1);
+        int mainVersion = Integer.parseInt(version);
+        String vendor = m.group(2);
+        String shortName = vendor + "-" + version;
+        return new ToolChain.JRE(mainVersion, version, vendor, line, shortName);
+    }
+
+    // as computed from the output of java_home
+    static String shortName(String vendor, String version) {
+        return vendor.replaceAll("[\\s.,-]", "") + "-" + version;
+    }
+
     public static List<ToolChain.JRE> runSystemCommandMacOs() {
         String home = System.getProperty("user.home");
         File file = new File(home + File.separator + ".e2immu.java_home.xml");
@@ -153,7 +168,7 @@ public class DetectJREs {
         public void endElement(String uri, String localName, String qName) throws SAXException {
             if ("dict".equals(qName)) {
                 int mainVersion = Integer.parseInt(version.substring(0, version.indexOf('.')));
-                String shortName = vendor.replaceAll("[\\s.,-]", "") + "-" + version;
+                String shortName = shortName(vendor, version);
                 jreList.add(new ToolChain.JRE(mainVersion, version, vendor, path, shortName));
                 return;
             }
@@ -7,25 +7,60 @@ import org.e2immu.language.cst.io.CodecImpl;
 import org.e2immu.language.inspection.api.integration.JavaInspector;
 import org.parsers.json.JSONParser;
 import org.parsers.json.Node;
-import org.parsers.json.ast.Array;
-import org.parsers.json.ast.JSONObject;
-import org.parsers.json.ast.KeyValuePair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.jar.JarEntry;
 import java.util.jar.JarInputStream;
 import java.util.stream.Stream;
 
+/*
+Loads analyzed package files into the analysis() of the corresponding Info objects.
+
+Both the .json files and the binary .aaapi files of BinaryPackageFile are accepted. When a directory or a jar
+contains both forms of the same package file, the binary one is used.
+
+In parallel mode, reading and parsing the package files happens on the executor, while the decoded values are
+written into info.analysis() on the calling thread, in the same order as the sequential loader.
+
+With memoryMap, package files in directories are memory-mapped and decoded straight from the mapped buffer,
+rather than being read into a String first.
+ */
 public class LoadAnalyzedPackageFiles {
     private static final Logger LOGGER = LoggerFactory.getLogger(LoadAnalyzedPackageFiles.class);
 
+    private final ExecutorService executor;
+    private final boolean memoryMap;
+
+    public LoadAnalyzedPackageFiles() {
+        this(null, false);
+    }
+
+    public LoadAnalyzedPackageFiles(ExecutorService executor) {
+        this(executor, false);
+    }
+
+    /*
+    executor: null for sequential loading. The caller remains responsible for shutting the executor down.
+    A fixed thread pool and Executors.newVirtualThreadPerTaskExecutor() both work.
+     */
+    public LoadAnalyzedPackageFiles(ExecutorService executor, boolean memoryMap) {
+        this.executor = executor;
+        this.memoryMap = memoryMap;
+    }
+
     public int go(JavaInspector javaInspector, AnnotatedAPIConfiguration annotatedAPIConfiguration) throws IOException {
         Codec codec = new PrepWorkCodec(javaInspector.runtime()).codec();
         return go(codec, annotatedAPIConfiguration);
@@ -42,11 +77,13 @@ public class LoadAnalyzedPackageFiles {
                 } else {
                     countPrimaryTypes += processJsonJar(codec, jarUrl);
                 }
+            } else if (dir.endsWith(".jar")) {
+                countPrimaryTypes += processJsonJar(codec, new File(dir).toURI().toURL());
             } else {
                 File directory = new File(dir);
                 if (directory.canRead()) {
                     countPrimaryTypes += goDir(codec, directory);
-                    LOGGER.info("Finished reading all json files in AAAPI {}", directory.getAbsolutePath());
+                    LOGGER.info("Finished reading all package files in AAAPI {}", directory.getAbsolutePath());
                 } else {
                     LOGGER.warn("Path '{}' is not a directory containing analyzed annotated API files", directory);
                 }
@@ -55,26 +92,133 @@ public class LoadAnalyzedPackageFiles {
         return countPrimaryTypes;
     }
 
-    private int processJsonJar(Codec codec, URL jarUrl) {
-        int countPrimaryTypes = 0;
+    /*
+    Lazy mode: rather than decoding all package files, only find out which files belong to which package.
+    The data of a package is decoded by the index, when a type of that package is needed.
+    Package files from jars are kept in memory (as slices of the memory-mapped jar, when it has an index);
+    package files in directories are read when needed.
+     */
+    public AnalyzedPackageIndex index(JavaInspector javaInspector, AnnotatedAPIConfiguration annotatedAPIConfiguration)
+            throws IOException {
+        Codec codec = new PrepWorkCodec(javaInspector.runtime()).codec();
+        return index(codec, annotatedAPIConfiguration);
+    }
+
+    public AnalyzedPackageIndex index(Codec codec, AnnotatedAPIConfiguration annotatedAPIConfiguration) throws IOException {
+        Map<String, List<AnalyzedPackageIndex.PackageFile>> packageFiles = new LinkedHashMap<>();
+        for (String dir : annotatedAPIConfiguration.analyzedAnnotatedApiDirs()) {
+            if (dir.startsWith(ToolChain.RESOURCE_PROTOCOL)) {
+                String path = dir.substring(9);
+                URL jarUrl = getClass().getResource(path);
+                if (jarUrl == null) {
+                    LOGGER.warn("Cannot find resource {}", dir);
+                } else {
+                    indexJar(jarUrl, packageFiles);
+                }
+            } else if (dir.endsWith(".jar")) {
+                indexJar(new File(dir).toURI().toURL(), packageFiles);
+            } else {
+                File directory = new File(dir);
+                if (directory.isDirectory()) {
+                    try (Stream<Path> stream = Files.walk(directory.toPath(), 3)) {
+                        stream.filter(LoadAnalyzedPackageFiles::acceptPackageFile).forEach(p ->
+                                addToIndex(packageFiles, new AnalyzedPackageIndex.PackageFile(p.toString(), null, p)));
+                    }
+                } else {
+                    LOGGER.warn("Path '{}' is not a directory containing analyzed annotated API files", directory);
+                }
+            }
+        }
+        LOGGER.info("Indexed {} packages", packageFiles.size());
+        return new AnalyzedPackageIndex(this, codec, packageFiles);
+    }
+
+    private static void indexJar(URL jarUrl, Map<String, List<AnalyzedPackageIndex.PackageFile>> packageFiles)
+            throws IOException {
+        jarPackageFiles(jarUrl).forEach((name, content) ->
+                addToIndex(packageFiles, new AnalyzedPackageIndex.PackageFile(name, content, null)));
+    }
+
+    private static void addToIndex(Map<String, List<AnalyzedPackageIndex.PackageFile>> packageFiles,
+                                   AnalyzedPackageIndex.PackageFile packageFile) {
+        String name = packageFile.name();
+        String fileName = name.substring(Math.max(name.lastIndexOf('/'), name.lastIndexOf(File.separatorChar)) + 1);
+        String compressed = fileName.substring(0, fileName.lastIndexOf('.'));
+        packageFiles.computeIfAbsent(compressed, k -> new ArrayList<>()).add(packageFile);
+    }
+
+    private static boolean isPackageFileName(String name) {
+        return BinaryPackageFile.isBinary(name) || name.endsWith(BinaryPackageFile.JSON_EXTENSION);
+    }
+
+    /*
+    The package files of a jar, by entry name, in jar order: slices of the jar buffer when the jar has an index,
+    copies otherwise. As in a directory, a JSON package file is skipped when the jar contains its binary form.
+     */
+    private static Map<String, ByteBuffer> jarPackageFiles(URL jarUrl) throws IOException {
+        Map<String, ByteBuffer> index = PackageFileJar.readIndex(jarBuffer(jarUrl));
+        Map<String, ByteBuffer> entries = index != null ? index : readJar(jarUrl);
+        Map<String, ByteBuffer> result = new LinkedHashMap<>();
+        entries.forEach((name, content) -> {
+            if (acceptPackageFileName(name, entries.keySet())) result.put(name, content);
+        });
+        return result;
+    }
+
+    private static Map<String, ByteBuffer> readJar(URL jarUrl) throws IOException {
+        Map<String, ByteBuffer> entries = new LinkedHashMap<>();
         try (InputStream inputStream = jarUrl.openStream();
              JarInputStream jis = new JarInputStream(inputStream)) {
             JarEntry jarEntry;
             while ((jarEntry = jis.getNextJarEntry()) != null) {
                 String realName = jarEntry.getRealName();
-                if (realName.endsWith(".json")) {
-                    LOGGER.debug("Adding {}", realName);
-                    try (ByteArrayOutputStream os = new ByteArrayOutputStream()) {
-                        byte[] bytes = new byte[1024];
-                        int read;
-                        while ((read = jis.read(bytes, 0, bytes.length)) > 0) {
-                            os.write(bytes, 0, read);
-                        }
-                        String content = os.toString();
-                        countPrimaryTypes += go(codec, content);
-                    }
+                if (isPackageFileName(realName)) {
+                    entries.put(realName, ByteBuffer.wrap(jis.readAllBytes()));
                 }
             }
+        }
+        return entries;
+    }
+
+    private static boolean acceptPackageFileName(String name, Set<String> names) {
+        if (BinaryPackageFile.isBinary(name)) return true;
+        if (!name.endsWith(BinaryPackageFile.JSON_EXTENSION)) return false;
+        String base = name.substring(0, name.length() - BinaryPackageFile.JSON_EXTENSION.length());
+        return !names.contains(base + BinaryPackageFile.EXTENSION);
+    }
+
+    /*
+    A jar file on the file system is memory-mapped; a jar nested in another jar (the resource: case, when running
+    from a distribution) is read into memory.
+     */
+    private static ByteBuffer jarBuffer(URL jarUrl) throws IOException {
+        if ("file".equals(jarUrl.getProtocol())) {
+            try {
+                return map(Path.of(jarUrl.toURI()));
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+        }
+        try (InputStream inputStream = jarUrl.openStream()) {
+            return ByteBuffer.wrap(inputStream.readAllBytes());
+        }
+    }
+
+    private int processJsonJar(Codec codec, URL jarUrl) {
+        int countPrimaryTypes = 0;
+        List<Future<RecordedFile>> futures = new ArrayList<>();
+        try {
+            for (Map.Entry<String, ByteBuffer> entry : jarPackageFiles(jarUrl).entrySet()) {
+                String name = entry.getKey();
+                LOGGER.debug("Adding {}", name);
+                ByteBuffer content = entry.getValue();
+                if (executor == null) {
+                    countPrimaryTypes += go(codec, name, content);
+                } else {
+                    futures.add(executor.submit(() -> recordFile(name, content)));
+                }
+            }
+            countPrimaryTypes += replay(codec, futures);
         } catch (IOException e) {
             LOGGER.error("Caught exception", e);
             throw new RuntimeException(e);
@@ -90,84 +234,270 @@ public class LoadAnalyzedPackageFiles {
 
     public int goDir(Codec codec, File directory) throws IOException {
         if (!directory.isDirectory()) throw new UnsupportedEncodingException(directory + " is not a directory");
-        try (Stream<Path> jsonFiles = Files.walk(directory.toPath(), 3)
-                .filter(p -> p.toString().endsWith(".json"))) {
-            int countPrimaryTypes = 0;
-            for (Path jsonFile : jsonFiles.toList()) {
-                countPrimaryTypes += go(codec, jsonFile);
-            }
-            return countPrimaryTypes;
+        List<Path> packageFiles;
+        try (Stream<Path> stream = Files.walk(directory.toPath(), 3)) {
+            packageFiles = stream.filter(LoadAnalyzedPackageFiles::acceptPackageFile).toList();
+        }
+        if (executor != null) {
+            List<Future<RecordedFile>> futures = packageFiles.stream()
+                    .map(packageFile -> executor.submit(() -> recordFile(packageFile)))
+                    .toList();
+            return replay(codec, futures);
+        }
+        int countPrimaryTypes = 0;
+        for (Path packageFile : packageFiles) {
+            countPrimaryTypes += go(codec, packageFile);
         }
+        return countPrimaryTypes;
     }
 
-    public int go(Codec codec, Path jsonFile) throws IOException {
-        LOGGER.info("Parsing {}", jsonFile);
-        String s = Files.readString(jsonFile);
-        return go(codec, s);
+    private static boolean acceptPackageFile(Path path) {
+        String fileName = path.getFileName().toString();
+        if (BinaryPackageFile.isBinary(fileName)) return true;
+        if (!fileName.endsWith(BinaryPackageFile.JSON_EXTENSION)) return false;
+        String base = fileName.substring(0, fileName.length() - BinaryPackageFile.JSON_EXTENSION.length());
+        return !Files.exists(path.resolveSibling(base + BinaryPackageFile.EXTENSION));
+    }
+
+    /*
+    The mapping remains valid after the channel has been closed.
+     */
+    private static ByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    public int go(Codec codec, Path packageFile) throws IOException {
+        LOGGER.info("Parsing {}", packageFile);
+        String fileName = packageFile.toString();
+        if (memoryMap) {
+            return go(codec, fileName, map(packageFile));
+        }
+        if (BinaryPackageFile.isBinary(fileName)) {
+            return go(codec, fileName, ByteBuffer.wrap(Files.readAllBytes(packageFile)));
+        }
+        try (Reader reader = Files.newBufferedReader(packageFile)) {
+            return go(codec, reader);
+        }
     }
 
     public int go(Codec codec, String content) {
-        JSONParser parser = new JSONParser(content);
-        parser.Root();
-        Node root = parser.rootNode();
+        try {
+            return go(codec, new StringReader(content));
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    public int go(Codec codec, Reader reader) throws IOException {
+        return new StreamingJsonDecoder(reader, new CodecHandler(codec)).go();
+    }
+
+    /*
+    content is either JSON (UTF-8) or binary, depending on the extension of the file name
+     */
+    public int go(Codec codec, String fileName, ByteBuffer content) throws IOException {
+        return decode(fileName, content, new CodecHandler(codec));
+    }
+
+    static int decode(String fileName, ByteBuffer content, StreamingJsonDecoder.Handler handler)
+            throws IOException {
+        if (BinaryPackageFile.isBinary(fileName)) {
+            return BinaryPackageFile.decode(content.duplicate(), handler);
+        }
+        return new StreamingJsonDecoder(content.duplicate(), handler).go();
+    }
+
+    private RecordedFile recordFile(Path packageFile) throws IOException {
+        LOGGER.info("Parsing {}", packageFile);
+        String fileName = packageFile.toString();
+        if (memoryMap) {
+            return recordFile(fileName, map(packageFile));
+        }
+        if (BinaryPackageFile.isBinary(fileName)) {
+            return recordFile(fileName, ByteBuffer.wrap(Files.readAllBytes(packageFile)));
+        }
+        try (Reader reader = Files.newBufferedReader(packageFile)) {
+            return recordFile(reader);
+        }
+    }
+
+    private static RecordedFile recordFile(String fileName, ByteBuffer content) throws IOException {
+        RecordedFile recordedFile = new RecordedFile();
+        decode(fileName, content, recordedFile);
+        return recordedFile;
+    }
+
+    private static RecordedFile recordFile(Reader reader) throws IOException {
+        RecordedFile recordedFile = new RecordedFile();
+        new StreamingJsonDecoder(reader, recordedFile).go();
+        return recordedFile;
+    }
+
+    /*
+    Feed the recorded files into the codec, on the current thread, in the order in which they were submitted.
+     */
+    private static int replay(Codec codec, List<Future<RecordedFile>> futures) throws IOException {
         int countPrimaryTypes = 0;
-        for (JSONObject jo : root.get(0).childrenOfType(JSONObject.class)) {
-            processPrimaryType(codec, jo);
-            ++countPrimaryTypes;
+        for (Future<RecordedFile> future : futures) {
+            RecordedFile recordedFile;
+            try {
+                recordedFile = future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                throw new InterruptedIOException("Interrupted while loading analyzed package files");
+            } catch (ExecutionException e) {
+                futures.forEach(f -> f.cancel(true));
+                if (e.getCause() instanceof IOException ioe) throw ioe;
+                if (e.getCause() instanceof RuntimeException re) throw re;
+                throw new IOException(e.getCause());
+            }
+            countPrimaryTypes += recordedFile.replay(new CodecHandler(codec));
         }
         return countPrimaryTypes;
     }
 
-    private static void processPrimaryType(Codec codec, JSONObject jo) {
-        Codec.Context context = new CodecImpl.ContextImpl();
-        processSub(codec, context, jo);
+    private enum Marker {START_PRIMARY_TYPE, END_DATA, END_INFO, END_PRIMARY_TYPE}
+
+    private record StartInfo(char type, String name) {
     }
 
-    private static void processSub(Codec codec, Codec.Context context, JSONObject jo) {
-        KeyValuePair nameKv = (KeyValuePair) jo.get(1);
-        String fullyQualifiedWithType = CodecImpl.unquote(nameKv.get(2).getSource());
-        KeyValuePair dataKv = (KeyValuePair) jo.get(3);
-        JSONObject dataJo = (JSONObject) dataKv.get(2);
+    private record Property(String key, Node value) {
+    }
 
-        char type = fullyQualifiedWithType.charAt(0);
-        String name = fullyQualifiedWithType.substring(1);
-        try {
-            Info info = codec.decodeInfoInContext(context, type, name);
-            if (info == null) {
-                throw new UnsupportedOperationException("Cannot find " + name);
-            }
-            context.push(info);
-            processData(codec, context, info, dataJo);
-            if (jo.size() > 5) {
-                KeyValuePair subs = (KeyValuePair) jo.get(5);
-                String subKey = subs.get(0).getSource();
-                if ("\"sub\"".equals(subKey)) {
-                    processSub(codec, context, (JSONObject) subs.get(2));
-                } else {
-                    assert "\"subs\"".equals(subKey);
-                    Array array = (Array) subs.get(2);
-                    for (int i = 1; i < array.size(); i += 2) {
-                        processSub(codec, context, (JSONObject) array.get(i));
+    /*
+    Result of the parallel phase: the events of one package file, with the property values already parsed.
+     */
+    private static class RecordedFile implements StreamingJsonDecoder.Handler {
+        private final Map<String, Node> parsedValues = new HashMap<>();
+        private final List<Object> events = new ArrayList<>();
+        private int countPrimaryTypes;
+
+        @Override
+        public void startPrimaryType() {
+            events.add(Marker.START_PRIMARY_TYPE);
+        }
+
+        @Override
+        public void startInfo(char type, String name) {
+            events.add(new StartInfo(type, name));
+        }
+
+        @Override
+        public void property(String key, String value) {
+            events.add(new Property(key, parsedValues.computeIfAbsent(value, CodecHandler::parseValue)));
+        }
+
+        @Override
+        public void endData() {
+            events.add(Marker.END_DATA);
+        }
+
+        @Override
+        public void endInfo() {
+            events.add(Marker.END_INFO);
+        }
+
+        @Override
+        public void endPrimaryType() {
+            events.add(Marker.END_PRIMARY_TYPE);
+            ++countPrimaryTypes;
+        }
+
+        int replay(CodecHandler handler) {
+            for (Object event : events) {
+                switch (event) {
+                    case StartInfo si -> handler.startInfo(si.type, si.name);
+                    case Property p -> handler.property(p.key, p.value);
+                    case Marker m -> {
+                        switch (m) {
+                            case START_PRIMARY_TYPE -> handler.startPrimaryType();
+                            case END_DATA -> handler.endData();
+                            case END_INFO -> handler.endInfo();
+                            case END_PRIMARY_TYPE -> handler.endPrimaryType();
+                        }
                     }
+                    default -> throw new UnsupportedOperationException();
                 }
             }
-        } catch (RuntimeException re) {
-            LOGGER.error("Caught exception destreaming {}", name);
-            throw re;
+            return countPrimaryTypes;
         }
-        context.pop();
     }
 
-    private static void processData(Codec codec, Codec.Context context, Info info, JSONObject dataJo) {
-        List<Codec.EncodedPropertyValue> epvs = new ArrayList<>();
-        for (int i = 1; i < dataJo.size(); i += 2) {
-            if (dataJo.get(i) instanceof KeyValuePair kvp2) {
-                String key = CodecImpl.unquote(kvp2.get(0).getSource());
-                epvs.add(new Codec.EncodedPropertyValue(key, new CodecImpl.D(kvp2.get(2))));
+    /*
+    Sends the events of the streaming decoder straight into the codec.
+    Property values are parsed individually; as many of them are identical ("1", "{}", ...),
+    we keep the parsed nodes of one file around.
+     */
+    private static class CodecHandler implements StreamingJsonDecoder.Handler {
+        private final Codec codec;
+        private final Map<String, Node> parsedValues = new HashMap<>();
+        private final Deque<Info> infoStack = new ArrayDeque<>();
+        private final Deque<String> nameStack = new ArrayDeque<>();
+        private List<Codec.EncodedPropertyValue> epvs = new ArrayList<>();
+        private Codec.Context context;
+
+        CodecHandler(Codec codec) {
+            this.codec = codec;
+        }
+
+        @Override
+        public void startPrimaryType() {
+            context = new CodecImpl.ContextImpl();
+        }
+
+        @Override
+        public void startInfo(char type, String name) {
+            try {
+                Info info = codec.decodeInfoInContext(context, type, name);
+                if (info == null) {
+                    throw new UnsupportedOperationException("Cannot find " + name);
+                }
+                context.push(info);
+                infoStack.push(info);
+                nameStack.push(name);
+            } catch (RuntimeException re) {
+                LOGGER.error("Caught exception destreaming {}", name);
+                throw re;
+            }
+        }
+
+        @Override
+        public void property(String key, String value) {
+            property(key, parsedValues.computeIfAbsent(value, CodecHandler::parseValue));
+        }
+
+        void property(String key, Node node) {
+            epvs.add(new Codec.EncodedPropertyValue(key, new CodecImpl.D(node)));
+        }
+
+        private static Node parseValue(String value) {
+            JSONParser parser = new JSONParser(value);
+            parser.Root();
+            return parser.rootNode().get(0);
+        }
+
+        @Override
+        public void endData() {
+            List<Codec.EncodedPropertyValue> list = epvs;
+            epvs = new ArrayList<>();
+            try {
+                // the decoder writes directly into info.analysis()! we must do this, because to properly
+                // decode HCS, we need the value of HCT which occurs earlier in the same list
+                codec.decode(context, infoStack.peek().analysis(), list.stream());
+            } catch (RuntimeException re) {
+                LOGGER.error("Caught exception destreaming {}", nameStack.peek());
+                throw re;
             }
         }
-        // the decoder writes directly into info.analysis()! we must do this, because to properly
-        // decode HCS, we need the value of HCT which occurs earlier in the same list
-        codec.decode(context, info.analysis(), epvs.stream());
+
+        @Override
+        public void endInfo() {
+            context.pop();
+            infoStack.pop();
+            nameStack.pop();
+        }
     }
 }
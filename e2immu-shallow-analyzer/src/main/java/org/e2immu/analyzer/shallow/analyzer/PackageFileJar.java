@@ -0,0 +1,282 @@
+package org.e2immu.analyzer.shallow.analyzer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+/*
+Jars of analyzed package files, with an index, so that a single package file can be read without scanning the jar.
+
+The jar starts with the manifest and the index, both STORED. The index has one line per STORED package file:
+
+entryName offset length
+
+where offset is the position of the entry's data in the jar file, and both numbers are written with a fixed width.
+Because of the fixed width, the size of the index does not depend on the offsets, and we can compute them
+by writing the jar twice.
+A STORED entry is not compressed, so that its bytes can be used directly. Only the package files that a reader
+needs are STORED: a JSON package file whose binary form is in the same jar is DEFLATED, and left out of the index.
+This keeps the jars small, while the index still covers every package file the loader uses.
+
+Reading: the jar is memory-mapped when it is a file, and read into memory when it is nested in another jar.
+Jars without index can still be read by the JarInputStream-based code in LoadAnalyzedPackageFiles.
+
+The main method replaces the "jar cf" commands of copyJsonMakeJars.sh.
+ */
+public class PackageFileJar {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PackageFileJar.class);
+
+    public static final String INDEX_ENTRY = "META-INF/aaapi.idx";
+    private static final String MANIFEST_ENTRY = "META-INF/MANIFEST.MF";
+    private static final String NUMBER_FORMAT = "%010d";
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int LOCAL_HEADER_SIZE = 30;
+
+    private PackageFileJar() {
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            ++count;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    private record Offset(long offset, int length) {
+    }
+
+    /*
+    entries: entry name to content, in the order in which they must be written
+     */
+    public static void write(Path jarFile, Map<String, byte[]> entries) throws IOException {
+        Set<String> stored = new HashSet<>();
+        entries.keySet().forEach(name -> {
+            if (!hasBinaryForm(name, entries.keySet())) stored.add(name);
+        });
+        Map<String, Offset> dummy = new LinkedHashMap<>();
+        entries.keySet().stream().filter(stored::contains).forEach(name -> dummy.put(name, new Offset(0, 0)));
+        Map<String, Offset> offsets = write(OutputStream.nullOutputStream(), entries, stored, index(dummy));
+        byte[] index = index(offsets);
+        try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(jarFile))) {
+            Map<String, Offset> check = write(os, entries, stored, index);
+            assert check.equals(offsets);
+        }
+        LOGGER.info("Wrote {} package files to {}, {} of them indexed", entries.size(), jarFile, stored.size());
+    }
+
+    private static boolean hasBinaryForm(String name, Set<String> names) {
+        if (!name.endsWith(BinaryPackageFile.JSON_EXTENSION)) return false;
+        String base = name.substring(0, name.length() - BinaryPackageFile.JSON_EXTENSION.length());
+        return names.contains(base + BinaryPackageFile.EXTENSION);
+    }
+
+    private static byte[] index(Map<String, Offset> offsets) {
+        StringBuilder sb = new StringBuilder();
+        offsets.forEach((name, offset) -> sb.append(name).append(' ')
+                .append(String.format(NUMBER_FORMAT, offset.offset)).append(' ')
+                .append(String.format(NUMBER_FORMAT, offset.length)).append('\n'));
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] manifest() throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(new Attributes.Name("Created-By"), PackageFileJar.class.getSimpleName());
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        manifest.write(outputStream);
+        return outputStream.toByteArray();
+    }
+
+    private static Map<String, Offset> write(OutputStream outputStream, Map<String, byte[]> entries,
+                                             Set<String> stored, byte[] index) throws IOException {
+        Map<String, Offset> offsets = new LinkedHashMap<>();
+        CountingOutputStream cos = new CountingOutputStream(outputStream);
+        try (JarOutputStream jos = new JarOutputStream(cos)) {
+            writeEntry(jos, MANIFEST_ENTRY, manifest());
+            writeEntry(jos, INDEX_ENTRY, index);
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                if (stored.contains(entry.getKey())) {
+                    // the local header has been written when putNextEntry returns
+                    long offset = writeEntry(jos, entry.getKey(), entry.getValue(), cos);
+                    offsets.put(entry.getKey(), new Offset(offset, entry.getValue().length));
+                } else {
+                    writeDeflatedEntry(jos, entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return offsets;
+    }
+
+    private static void writeEntry(JarOutputStream jos, String name, byte[] content) throws IOException {
+        writeEntry(jos, name, content, null);
+    }
+
+    private static long writeEntry(JarOutputStream jos, String name, byte[] content, CountingOutputStream cos)
+            throws IOException {
+        ZipEntry zipEntry = new ZipEntry(name);
+        zipEntry.setMethod(ZipEntry.STORED);
+        zipEntry.setSize(content.length);
+        zipEntry.setCompressedSize(content.length);
+        CRC32 crc32 = new CRC32();
+        crc32.update(content);
+        zipEntry.setCrc(crc32.getValue());
+        zipEntry.setTime(0L); // reproducible jars
+        jos.putNextEntry(zipEntry);
+        jos.flush();
+        long offset = cos == null ? -1 : cos.count;
+        jos.write(content);
+        jos.closeEntry();
+        return offset;
+    }
+
+    private static void writeDeflatedEntry(JarOutputStream jos, String name, byte[] content) throws IOException {
+        ZipEntry zipEntry = new ZipEntry(name);
+        zipEntry.setMethod(ZipEntry.DEFLATED);
+        zipEntry.setTime(0L);
+        jos.putNextEntry(zipEntry);
+        jos.write(content);
+        jos.closeEntry();
+    }
+
+    /*
+    Returns the package files of an indexed jar, in index order, as slices of the jar buffer;
+    returns null when the jar does not start with an index, possibly preceded by the manifest.
+     */
+    public static Map<String, ByteBuffer> readIndex(ByteBuffer jar) {
+        ByteBuffer buffer = jar.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int position = 0;
+        String name = entryName(buffer, position);
+        if (MANIFEST_ENTRY.equals(name)) {
+            position = entryData(buffer, position) + buffer.getInt(position + 18);
+            name = entryName(buffer, position);
+        }
+        if (!INDEX_ENTRY.equals(name)) return null;
+        int start = entryData(buffer, position);
+        byte[] indexBytes = new byte[buffer.getInt(position + 18)];
+        buffer.get(start, indexBytes);
+
+        Map<String, ByteBuffer> result = new LinkedHashMap<>();
+        for (String line : new String(indexBytes, StandardCharsets.UTF_8).split("\n")) {
+            if (line.isBlank()) continue;
+            String[] parts = line.split(" ");
+            int offset = Integer.parseInt(parts[1]);
+            int length = Integer.parseInt(parts[2]);
+            result.put(parts[0], jar.slice(offset, length));
+        }
+        return result;
+    }
+
+    /*
+    The name of the STORED entry whose local header starts at position; null when there is none.
+     */
+    private static String entryName(ByteBuffer buffer, int position) {
+        if (position < 0 || buffer.limit() - position < LOCAL_HEADER_SIZE
+            || buffer.getInt(position) != LOCAL_HEADER_SIGNATURE) return null;
+        int method = Short.toUnsignedInt(buffer.getShort(position + 8));
+        int nameLength = Short.toUnsignedInt(buffer.getShort(position + 26));
+        if (method != ZipEntry.STORED || position + LOCAL_HEADER_SIZE + nameLength > buffer.limit()) return null;
+        byte[] nameBytes = new byte[nameLength];
+        buffer.get(position + LOCAL_HEADER_SIZE, nameBytes);
+        return new String(nameBytes, StandardCharsets.UTF_8);
+    }
+
+    private static int entryData(ByteBuffer buffer, int position) {
+        int nameLength = Short.toUnsignedInt(buffer.getShort(position + 26));
+        int extraLength = Short.toUnsignedInt(buffer.getShort(position + 28));
+        return position + LOCAL_HEADER_SIZE + nameLength + extraLength;
+    }
+
+    /*
+    Creates one jar per JDK directory (jdk/openjdk-21.0.7 -> jdk/openjdk-21.0.7.jar), and one jar for all
+    libraries (libs/*\/*.json -> libs.jar). The JSON package files are converted into binary ones, see collect.
+
+    Usage: PackageFileJar analyzedPackageFilesDirectory
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: PackageFileJar analyzedPackageFilesDirectory");
+            System.exit(1);
+        }
+        Path base = Path.of(args[0]);
+        Path jdk = base.resolve("jdk");
+        if (Files.isDirectory(jdk)) {
+            try (Stream<Path> jdkDirs = Files.list(jdk)) {
+                for (Path jdkDir : jdkDirs.filter(Files::isDirectory).sorted().toList()) {
+                    write(jdk.resolve(jdkDir.getFileName() + ".jar"), collect(jdkDir, 1));
+                }
+            }
+        }
+        Path libs = base.resolve("libs");
+        if (Files.isDirectory(libs)) {
+            write(base.resolve("libs.jar"), collect(libs, 2));
+        }
+    }
+
+    /*
+    Every JSON package file is added to the jar together with its binary form, so that the loader can use the
+    latter. A binary file already present in the directory takes precedence over the conversion.
+     */
+    private static Map<String, byte[]> collect(Path dir, int depth) throws IOException {
+        Map<String, byte[]> entries = new TreeMap<>();
+        try (Stream<Path> files = Files.walk(dir, depth)) {
+            for (Path file : files.filter(PackageFileJar::isPackageFile).toList()) {
+                String name = dir.relativize(file).toString().replace(File.separatorChar, '/');
+                entries.put(name, Files.readAllBytes(file));
+            }
+        }
+        Map<String, byte[]> binaries = new HashMap<>();
+        entries.forEach((name, content) -> {
+            if (name.endsWith(BinaryPackageFile.JSON_EXTENSION)) {
+                String binaryName = name.substring(0, name.length() - BinaryPackageFile.JSON_EXTENSION.length())
+                                    + BinaryPackageFile.EXTENSION;
+                if (!entries.containsKey(binaryName)) {
+                    binaries.put(binaryName, toBinary(content));
+                }
+            }
+        });
+        entries.putAll(binaries);
+        return entries;
+    }
+
+    private static byte[] toBinary(byte[] json) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (Reader reader = new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8)) {
+            BinaryPackageFile.jsonToBinary(reader, outputStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static boolean isPackageFile(Path path) {
+        String fileName = path.getFileName().toString();
+        return Files.isRegularFile(path) && (fileName.endsWith(BinaryPackageFile.JSON_EXTENSION)
+                                             || BinaryPackageFile.isBinary(fileName));
+    }
+}
@@ -0,0 +1,182 @@
+package org.e2immu.analyzer.shallow.analyzer;
+
+import org.e2immu.language.cst.api.info.FieldInfo;
+import org.e2immu.language.cst.api.info.MethodInfo;
+import org.e2immu.language.cst.api.info.ParameterInfo;
+import org.e2immu.language.cst.api.info.TypeInfo;
+import org.e2immu.language.cst.api.type.ParameterizedType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Stream;
+
+/*
+Content-hash manifest of the analyzed package files written by Run, one line per package:
+
+packageName key
+
+The key of a package is a SHA-256 hash of
+- the environment: the JDK and the version of the analyzer,
+- the AAPI source files of the package,
+- the AAPI source files of all packages it depends on, transitively.
+A package depends on the packages of its types' supertypes, and of the types of their fields, method parameters
+and method return types, because the analysis of a type reads the analysis of those types.
+
+When the key of a package has not changed since the previous run, neither has its analyzed package file, and
+the package need not be analyzed or written again. Delete the manifest to force a full regeneration.
+ */
+public class PackageManifest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PackageManifest.class);
+
+    public static final String HEADER = "# aaapi manifest 1";
+
+    private final Map<String, String> keys;
+
+    public PackageManifest(Map<String, String> keys) {
+        this.keys = Map.copyOf(keys);
+    }
+
+    /*
+    Returns an empty manifest when the file does not exist, or cannot be read.
+     */
+    public static PackageManifest read(Path file) {
+        if (!Files.isReadable(file)) return new PackageManifest(Map.of());
+        try {
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            if (lines.isEmpty() || !HEADER.equals(lines.getFirst())) {
+                LOGGER.warn("Ignoring manifest {}, unknown format", file);
+                return new PackageManifest(Map.of());
+            }
+            Map<String, String> keys = new HashMap<>();
+            for (String line : lines.subList(1, lines.size())) {
+                if (line.isBlank()) continue;
+                int space = line.indexOf(' ');
+                if (space <= 0) {
+                    LOGGER.warn("Ignoring manifest {}, cannot parse line '{}'", file, line);
+                    return new PackageManifest(Map.of());
+                }
+                keys.put(line.substring(0, space), line.substring(space + 1));
+            }
+            return new PackageManifest(keys);
+        } catch (IOException ioe) {
+            LOGGER.warn("Ignoring manifest {}: {}", file, ioe.getMessage());
+            return new PackageManifest(Map.of());
+        }
+    }
+
+    public void write(Path file) throws IOException {
+        StringBuilder sb = new StringBuilder(HEADER).append('\n');
+        new TreeMap<>(keys).forEach((packageName, key) -> sb.append(packageName).append(' ').append(key).append('\n'));
+        Files.writeString(file, sb, StandardCharsets.UTF_8);
+    }
+
+    public Map<String, String> keys() {
+        return keys;
+    }
+
+    public boolean isUnchanged(String packageName, String key) {
+        return key.equals(keys.get(packageName));
+    }
+
+    /*
+    Computes the keys of all packages in 'dependencies'.
+
+    environment: JDK and analyzer version
+    sourcesPerPackage: the content of the AAPI source files of a package, in a fixed order
+    dependencies: package name to the names of the packages it depends on directly
+     */
+    public static Map<String, String> computeKeys(String environment,
+                                                  Map<String, List<byte[]>> sourcesPerPackage,
+                                                  Map<String, Set<String>> dependencies) {
+        Map<String, byte[]> sourceHashes = new HashMap<>();
+        sourcesPerPackage.forEach((packageName, sources) -> {
+            MessageDigest digest = sha256();
+            sources.forEach(source -> {
+                digest.update(source);
+                digest.update((byte) 0);
+            });
+            sourceHashes.put(packageName, digest.digest());
+        });
+        Map<String, String> result = new TreeMap<>();
+        for (String packageName : dependencies.keySet()) {
+            MessageDigest digest = sha256();
+            update(digest, environment);
+            for (String p : closure(packageName, dependencies)) {
+                update(digest, p);
+                byte[] hash = sourceHashes.get(p);
+                if (hash != null) digest.update(hash);
+            }
+            result.put(packageName, HexFormat.of().formatHex(digest.digest()));
+        }
+        return result;
+    }
+
+    // sorted, including the package itself
+    private static SortedSet<String> closure(String packageName, Map<String, Set<String>> dependencies) {
+        SortedSet<String> result = new TreeSet<>();
+        Deque<String> toDo = new ArrayDeque<>();
+        toDo.add(packageName);
+        while (!toDo.isEmpty()) {
+            String p = toDo.removeFirst();
+            if (result.add(p)) {
+                toDo.addAll(dependencies.getOrDefault(p, Set.of()));
+            }
+        }
+        return result;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new UnsupportedOperationException(e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String s) {
+        digest.update(s.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    /*
+    The direct package dependencies of the packages of the types and their supertypes.
+     */
+    public static Map<String, Set<String>> packageDependencies(Collection<TypeInfo> types) {
+        Map<String, Set<String>> result = new HashMap<>();
+        types.stream()
+                .flatMap(TypeInfo::recursiveSubTypeStream)
+                .flatMap(t -> Stream.concat(Stream.of(t), t.recursiveSuperTypeStream()))
+                .distinct()
+                .forEach(typeInfo -> {
+                    Set<String> set = result.computeIfAbsent(typeInfo.packageName(), p -> new HashSet<>());
+                    typeInfo.recursiveSuperTypeStream().forEach(st -> set.add(st.packageName()));
+                    for (FieldInfo fieldInfo : typeInfo.fields()) {
+                        addPackages(fieldInfo.type(), set);
+                    }
+                    typeInfo.constructorAndMethodStream().forEach(mi -> addPackages(mi, set));
+                });
+        return result;
+    }
+
+    private static void addPackages(MethodInfo methodInfo, Set<String> set) {
+        addPackages(methodInfo.returnType(), set);
+        for (ParameterInfo parameterInfo : methodInfo.parameters()) {
+            addPackages(parameterInfo.parameterizedType(), set);
+        }
+    }
+
+    private static void addPackages(ParameterizedType parameterizedType, Set<String> set) {
+        TypeInfo typeInfo = parameterizedType.bestTypeInfo();
+        if (typeInfo != null) set.add(typeInfo.packageName());
+        for (ParameterizedType parameter : parameterizedType.parameters()) {
+            addPackages(parameter, set);
+        }
+    }
+}
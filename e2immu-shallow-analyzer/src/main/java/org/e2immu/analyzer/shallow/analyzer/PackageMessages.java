@@ -0,0 +1,154 @@
+package org.e2immu.analyzer.shallow.analyzer;
+
+import org.e2immu.language.cst.api.analysis.Message;
+import org.e2immu.language.cst.api.info.Info;
+import org.e2immu.language.cst.api.info.MethodInfo;
+import org.e2immu.language.cst.api.info.TypeInfo;
+import org.e2immu.language.cst.impl.analysis.MessageImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/*
+The messages of the shallow analyzer, per package, written by Run next to the manifest, one line per message:
+
+packageName kind info message
+
+separated by tabs. The kind is T for a type, M for a method (the shallow analyzer reports on nothing else); the info
+is the fully qualified name of the type or method. Backslashes, tabs and newlines in the message are escaped.
+
+An incremental run does not analyze the packages whose key has not changed; their messages are replayed from this
+file, so that an incremental run reports the same messages as a full run. All messages of the shallow analyzer are
+warnings.
+ */
+public class PackageMessages {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PackageMessages.class);
+
+    public static final String HEADER = "# aaapi messages 1";
+
+    public record Entry(char kind, String info, String message) {
+    }
+
+    private final Map<String, List<Entry>> entries;
+
+    public PackageMessages(Map<String, List<Entry>> entries) {
+        this.entries = Map.copyOf(entries);
+    }
+
+    public static PackageMessages of(List<Message> messages) {
+        Map<String, List<Entry>> entries = new HashMap<>();
+        for (Message message : messages) {
+            Info info = message.info();
+            Entry entry;
+            String packageName;
+            if (info instanceof TypeInfo typeInfo) {
+                entry = new Entry('T', typeInfo.fullyQualifiedName(), message.message());
+                packageName = typeInfo.packageName();
+            } else if (info instanceof MethodInfo methodInfo) {
+                entry = new Entry('M', methodInfo.fullyQualifiedName(), message.message());
+                packageName = methodInfo.typeInfo().packageName();
+            } else {
+                throw new UnsupportedOperationException("Expect messages on types and methods only, not on " + info);
+            }
+            entries.computeIfAbsent(packageName, p -> new ArrayList<>()).add(entry);
+        }
+        return new PackageMessages(entries);
+    }
+
+    public static String packageName(Message message) {
+        if (message.info() instanceof MethodInfo methodInfo) return methodInfo.typeInfo().packageName();
+        return ((TypeInfo) message.info()).packageName();
+    }
+
+    /*
+    Returns null when the file does not exist, or cannot be read: the messages of the previous run are unknown.
+     */
+    public static PackageMessages read(Path file) {
+        if (!Files.isReadable(file)) return null;
+        try {
+            List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            if (lines.isEmpty() || !HEADER.equals(lines.getFirst())) {
+                LOGGER.warn("Ignoring messages {}, unknown format", file);
+                return null;
+            }
+            Map<String, List<Entry>> entries = new HashMap<>();
+            for (String line : lines.subList(1, lines.size())) {
+                if (line.isBlank()) continue;
+                String[] fields = line.split("\t", 4);
+                if (fields.length != 4 || fields[1].length() != 1) {
+                    LOGGER.warn("Ignoring messages {}, cannot parse line '{}'", file, line);
+                    return null;
+                }
+                entries.computeIfAbsent(fields[0], p -> new ArrayList<>())
+                        .add(new Entry(fields[1].charAt(0), fields[2], unescape(fields[3])));
+            }
+            return new PackageMessages(entries);
+        } catch (IOException ioe) {
+            LOGGER.warn("Ignoring messages {}: {}", file, ioe.getMessage());
+            return null;
+        }
+    }
+
+    public void write(Path file) throws IOException {
+        StringBuilder sb = new StringBuilder(HEADER).append('\n');
+        new TreeMap<>(entries).forEach((packageName, list) -> list.forEach(entry -> sb.append(packageName)
+                .append('\t').append(entry.kind)
+                .append('\t').append(entry.info)
+                .append('\t').append(escape(entry.message)).append('\n')));
+        Files.writeString(file, sb, StandardCharsets.UTF_8);
+    }
+
+    public Map<String, List<Entry>> entries() {
+        return entries;
+    }
+
+    /*
+    Recreates the messages of the given packages, on the types and methods of 'types' (and their subtypes).
+     */
+    public List<Message> replay(Set<String> packages, Collection<TypeInfo> types) {
+        Map<String, Info> infos = new HashMap<>();
+        types.stream()
+                .filter(t -> packages.contains(t.packageName()))
+                .flatMap(TypeInfo::recursiveSubTypeStream)
+                .forEach(typeInfo -> {
+                    infos.put("T" + typeInfo.fullyQualifiedName(), typeInfo);
+                    typeInfo.constructorAndMethodStream()
+                            .forEach(mi -> infos.put("M" + mi.fullyQualifiedName(), mi));
+                });
+        List<Message> result = new ArrayList<>();
+        for (String packageName : new TreeSet<>(packages)) {
+            for (Entry entry : entries.getOrDefault(packageName, List.of())) {
+                Info info = infos.get(entry.kind + entry.info);
+                if (info == null) {
+                    LOGGER.warn("Cannot replay message on {}: {}", entry.info, entry.message);
+                } else {
+                    result.add(MessageImpl.warn(info, entry.message));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n");
+    }
+
+    private static String unescape(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\\' && i + 1 < s.length()) {
+                char next = s.charAt(++i);
+                sb.append(next == 't' ? '\t' : next == 'n' ? '\n' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
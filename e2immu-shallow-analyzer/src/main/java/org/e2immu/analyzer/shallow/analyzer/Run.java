@@ -3,25 +3,35 @@ package org.e2immu.analyzer.shallow.analyzer;
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import org.e2immu.analyzer.modification.prepwork.PrepAnalyzer;
+import org.e2immu.analyzer.modification.prepwork.PrepWorkCodec;
+import org.e2immu.language.cst.api.analysis.Codec;
 import org.e2immu.language.cst.api.analysis.Message;
 import org.e2immu.language.cst.api.info.Info;
 import org.e2immu.language.cst.api.info.TypeInfo;
 import org.e2immu.language.cst.impl.analysis.PropertyImpl;
 import org.e2immu.language.cst.impl.analysis.ValueImpl;
+import org.e2immu.language.cst.io.CodecImpl;
 import org.e2immu.language.inspection.integration.JavaInspectorImpl;
 import org.e2immu.util.internal.util.Trie;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Set;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class Run {
     private static final org.slf4j.Logger LOGGER = LoggerFactory.getLogger(Run.class);
 
+    public static final String MANIFEST_EXTENSION = ".manifest";
+    public static final String MESSAGES_EXTENSION = ".messages";
+    public static final String INCREMENTAL_PROPERTY = "e2immu.aaapi.incremental";
+
     public static final String[] SOURCES = {
             "../analyzer-shallow/e2immu-shallow-aapi/src/main/java/org/e2immu/analyzer/shallow/aapi"
     };
@@ -31,15 +41,50 @@ public class Run {
         ((Logger) LoggerFactory.getLogger("org.e2immu.analyzer.shallow")).setLevel(Level.DEBUG);
         ((Logger) LoggerFactory.getLogger("org.e2immu.analyzer.modification.prepwork")).setLevel(Level.DEBUG);
 
-        Run run = new Run();
-        for (ToolChain.JRE jre : ToolChain.JRES) {
+        Run run = new Run(Boolean.getBoolean(INCREMENTAL_PROPERTY), new File("build"));
+        for (ToolChain.JRE jre : ToolChain.jres()) {
             if ("HomeBrew".equals(jre.vendor()) && 17 <= jre.mainVersion()) {
                 run.go(jre.path(), SOURCES);
             }
         }
     }
 
+    public static final String METRICS_FILE = "shallowAnalyzerMetrics.json";
+
+    public record Result(List<Message> messages, ShallowAnalyzerMetrics metrics) {
+    }
+
+    private final boolean incremental;
+    private final File buildDir;
+
+    public Run() {
+        this(false, new File("build"));
+    }
+
+    /*
+    incremental: when true, the packages whose key in the manifest has not changed since the previous run are
+    neither analyzed nor written again; their analyzed package files are loaded from the previous run, and their
+    messages are replayed. Analyzed package files and decorated AAPI files of packages that are no longer produced
+    are deleted. The output, including the messages, which are sorted by package in both modes, is the same as that
+    of a full run.
+    When false, all packages are analyzed and written; the manifest and the messages are written nevertheless, for
+    the benefit of a later incremental run.
+
+    buildDir: the analyzed package files are written to buildDir/json, the decorated AAPI files to buildDir/decorated.
+     */
+    public Run(boolean incremental, File buildDir) {
+        this.incremental = incremental;
+        this.buildDir = buildDir;
+    }
+
     public List<Message> go(String alternativeJreOrNull, String[] args) throws IOException {
+        return goWithMetrics(alternativeJreOrNull, args).messages();
+    }
+
+    /*
+    As go(), but also returns the metrics of the run, which are written to METRICS_FILE as well.
+     */
+    public Result goWithMetrics(String alternativeJreOrNull, String[] args) throws IOException {
         LOGGER.info("I'm at {}", new File(".").getAbsolutePath());
         AnnotatedApiParser annotatedApiParser = new AnnotatedApiParser();
         List<String> classPath = new ArrayList<>();
@@ -50,10 +95,30 @@ public class Run {
                 classPath,
                 List.of(args[0]),
                 List.of("java", "javax", "e2immu", "log", "test"));
+        File dir = new File(buildDir, "json");
+        File decoratedDir = new File(buildDir, "decorated");
+        Path manifestFile = new File(buildDir, dir.getName() + MANIFEST_EXTENSION).toPath();
+        Path messagesFile = new File(buildDir, dir.getName() + MESSAGES_EXTENSION).toPath();
+        PackageMessages previousMessages = incremental ? PackageMessages.read(messagesFile) : null;
+        // without the messages of the previous run, we cannot skip any package
+        PackageManifest previous = previousMessages == null ? new PackageManifest(Map.of())
+                : PackageManifest.read(manifestFile);
+        Map<String, String> keys = PackageManifest.computeKeys(environment(alternativeJreOrNull),
+                sources(annotatedApiParser.sourcesPerApiPackage()),
+                PackageManifest.packageDependencies(annotatedApiParser.types()));
+        ShallowAnalyzerMetrics metrics = annotatedApiParser.metrics();
+        Set<String> unchanged;
+        try (ShallowAnalyzerMetrics.Measurement ignored =
+                     metrics.start(ShallowAnalyzerMetrics.Stage.LOAD_UNCHANGED_PACKAGES)) {
+            unchanged = loadUnchanged(annotatedApiParser, dir, previous, keys);
+        }
+
         ShallowAnalyzer shallowAnalyzer = new ShallowAnalyzer(annotatedApiParser);
         List<TypeInfo> parsedTypes = shallowAnalyzer.go();
-        PrepAnalyzer prepAnalyzer = new PrepAnalyzer(annotatedApiParser.runtime());
-        prepAnalyzer.initialize(annotatedApiParser.javaInspector().compiledTypesManager().typesLoaded());
+        try (ShallowAnalyzerMetrics.Measurement ignored = metrics.start(ShallowAnalyzerMetrics.Stage.PREP_ANALYSIS)) {
+            PrepAnalyzer prepAnalyzer = new PrepAnalyzer(annotatedApiParser.runtime());
+            prepAnalyzer.initialize(annotatedApiParser.javaInspector().compiledTypesManager().typesLoaded());
+        }
 
         Set<Info> infos = annotatedApiParser.infos();
         LOGGER.info("Parsed and analyzed {} types; {} info objects", parsedTypes.size(), infos.size());
@@ -65,18 +130,127 @@ public class Run {
 
         WriteAnalysis wa = new WriteAnalysis(annotatedApiParser.runtime());
         Trie<TypeInfo> trie = new Trie<>();
+        Map<String, String> newKeys = new HashMap<>();
+        Set<String> packages = new HashSet<>();
         for (TypeInfo ti : parsedTypes) {
             if (ti.isPrimaryType()) {
-                trie.add(ti.packageName().split("\\."), ti);
+                packages.add(ti.packageName());
+                String key = keys.get(ti.packageName());
+                if (key != null) newKeys.put(ti.packageName(), key);
+                if (!unchanged.contains(ti.packageName())) {
+                    trie.add(ti.packageName().split("\\."), ti);
+                }
             }
         }
-        File dir = new File("build/json");
         File targetFile = new File(dir, "OrgE2Immu.json");
         if (targetFile.delete()) LOGGER.debug("Deleted {}", targetFile);
-        wa.write(dir.getAbsolutePath(), trie);
+        try (ShallowAnalyzerMetrics.Measurement ignored = metrics.start(ShallowAnalyzerMetrics.Stage.WRITE_ANALYSIS)) {
+            wa.write(dir.getAbsolutePath(), trie);
+        }
 
         WriteDecoratedAAPI writeDecoratedAAPI = new WriteDecoratedAAPI(annotatedApiParser.javaInspector());
-        writeDecoratedAAPI.write("build/decorated", trie);
-        return shallowAnalyzer.getMessages();
+        try (ShallowAnalyzerMetrics.Measurement ignored = metrics.start(ShallowAnalyzerMetrics.Stage.WRITE_DECORATED)) {
+            writeDecoratedAAPI.write(decoratedDir.getPath(), trie);
+        }
+        if (incremental) {
+            deleteStaleOutputs(dir, decoratedDir, packages);
+        }
+
+        List<Message> messages = new ArrayList<>(shallowAnalyzer.getMessages().stream()
+                .filter(m -> !unchanged.contains(PackageMessages.packageName(m)))
+                .toList());
+        if (!unchanged.isEmpty()) {
+            messages.addAll(previousMessages.replay(unchanged, parsedTypes));
+        }
+        // stable, so that within a package, the order of the analyzer is kept, in full and in incremental runs
+        messages.sort(Comparator.comparing(PackageMessages::packageName));
+        PackageMessages.of(messages).write(messagesFile);
+        // only now that all files have been written
+        new PackageManifest(newKeys).write(manifestFile);
+
+        metrics.count("typesAnalyzed", parsedTypes.size());
+        metrics.count("typesAnnotated", annotatedApiParser.types().size());
+        metrics.count("methodsAnnotated", annotatedApiParser.methods().size());
+        metrics.count("fieldsAnnotated", annotatedApiParser.fields().size());
+        metrics.count("parametersAnnotated", annotatedApiParser.parameters().size());
+        metrics.count("annotations", annotatedApiParser.getAnnotationCount());
+        metrics.count("warnings", annotatedApiParser.getWarnings());
+        metrics.count("packagesUnchanged", unchanged.size());
+        metrics.count("messages", messages.size());
+        File metricsFile = new File(dir.getParentFile(), METRICS_FILE);
+        metrics.write(metricsFile.toPath());
+        LOGGER.info("Wrote metrics to {}", metricsFile);
+        return new Result(messages, metrics);
+    }
+
+    private static String environment(String alternativeJreOrNull) {
+        String jre = alternativeJreOrNull == null ? SnapshotCache.jreShortName() : alternativeJreOrNull;
+        return "jre " + jre + " analyzer " + Stream.of(ShallowAnalyzer.class, ShallowTypeAnalyzer.class,
+                        ShallowMethodAnalyzer.class, CommonAnalyzer.class, AnalysisHelper.class, PrepAnalyzer.class,
+                        CodecImpl.class)
+                .map(SnapshotCache::version)
+                .collect(Collectors.joining(" "));
+    }
+
+    /*
+    Deletes the analyzed package files and the decorated AAPI files of the packages that a full run would not
+    produce (anymore).
+     */
+    private static void deleteStaleOutputs(File dir, File decoratedDir, Set<String> packages) throws IOException {
+        Set<String> jsonFiles = packages.stream()
+                .map(p -> AnalyzedPackageIndex.compressedPackageName(p) + BinaryPackageFile.JSON_EXTENSION)
+                .collect(Collectors.toUnmodifiableSet());
+        deleteStaleOutputs(dir, BinaryPackageFile.JSON_EXTENSION, jsonFiles);
+        Set<String> decoratedFiles = packages.stream()
+                .map(p -> Composer.convertToCamelCase(p) + ".java")
+                .collect(Collectors.toUnmodifiableSet());
+        deleteStaleOutputs(new File(decoratedDir, "org/e2immu"), ".java", decoratedFiles);
+    }
+
+    private static void deleteStaleOutputs(File dir, String extension, Set<String> keep) throws IOException {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(extension) && !keep.contains(name));
+        if (files == null) return;
+        for (File file : files) {
+            Files.delete(file.toPath());
+            LOGGER.info("Deleted stale output {}", file);
+        }
+    }
+
+    private static Map<String, List<byte[]>> sources(Map<String, List<URI>> sourcesPerApiPackage) throws IOException {
+        Map<String, List<byte[]>> result = new HashMap<>();
+        for (Map.Entry<String, List<URI>> entry : sourcesPerApiPackage.entrySet()) {
+            List<byte[]> list = new ArrayList<>();
+            for (URI uri : entry.getValue().stream().sorted().toList()) {
+                try (InputStream inputStream = uri.toURL().openStream()) {
+                    list.add(inputStream.readAllBytes());
+                }
+            }
+            result.put(entry.getKey(), list);
+        }
+        return result;
+    }
+
+    /*
+    Loads the analyzed package files of the previous run for the packages whose key has not changed, so that the
+    shallow analyzer skips their types (it ignores types, fields and methods that have been analyzed already).
+     */
+    private static Set<String> loadUnchanged(AnnotatedApiParser annotatedApiParser,
+                                             File dir,
+                                             PackageManifest previous,
+                                             Map<String, String> keys) throws IOException {
+        Set<String> unchanged = new HashSet<>();
+        Codec codec = new PrepWorkCodec(annotatedApiParser.runtime()).codec();
+        LoadAnalyzedPackageFiles loader = new LoadAnalyzedPackageFiles();
+        for (Map.Entry<String, String> entry : keys.entrySet()) {
+            String packageName = entry.getKey();
+            File packageFile = new File(dir, AnalyzedPackageIndex.compressedPackageName(packageName)
+                                             + BinaryPackageFile.JSON_EXTENSION);
+            if (previous.isUnchanged(packageName, entry.getValue()) && packageFile.isFile()) {
+                loader.go(codec, packageFile.toPath());
+                unchanged.add(packageName);
+            }
+        }
+        LOGGER.info("{} of {} packages unchanged since the previous run", unchanged.size(), keys.size());
+        return unchanged;
     }
 }
@@ -13,9 +13,10 @@ import org.e2immu.language.cst.impl.analysis.ValueImpl;
 import org.e2immu.util.internal.graph.G;
 import org.e2immu.util.internal.graph.op.Linearize;
 
-import java.util.Comparator;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.stream.Stream;
 
 public class ShallowAnalyzer {
@@ -26,25 +27,79 @@ public class ShallowAnalyzer {
     private final TypeInfo modifiedTi;
     private final TypeInfo notModifiedTi;
     private final List<Message> messages = new LinkedList<>();
+    private final ExecutorService executor;
 
     public ShallowAnalyzer(AnnotatedApiParser annotatedApiParser) {
+        this(annotatedApiParser, null);
+    }
+
+    /*
+    executor: when not null, the types are analyzed in parallel, with exactly the same result as a sequential run.
+    Types are analyzed in the order of the linearization of the type hierarchy, because the analysis of a method
+    reads the analysis of the methods it overrides. In parallel mode, that order is split into levels, see levels().
+    The caller remains responsible for shutting the executor down.
+     */
+    public ShallowAnalyzer(AnnotatedApiParser annotatedApiParser, ExecutorService executor) {
         this.annotatedApiParser = annotatedApiParser;
         this.modifiedTi = annotatedApiParser.runtime().getFullyQualified(Modified.class, true);
         this.notModifiedTi = annotatedApiParser.runtime().getFullyQualified(NotModified.class, true);
+        this.executor = executor;
     }
 
     public List<TypeInfo> go() {
-        ShallowTypeAnalyzer shallowTypeAnalyzer = new ShallowTypeAnalyzer(annotatedApiParser);
-        ShallowMethodAnalyzer shallowMethodAnalyzer = new ShallowMethodAnalyzer(annotatedApiParser);
+        ShallowAnalyzerMetrics metrics = annotatedApiParser.metrics();
+        SuperTypeCache superTypeCache = new SuperTypeCache();
+        AnalysisHelper analysisHelper = new AnalysisHelper(AnalysisHelper.DEFAULT_CACHE_SIZE);
+        ShallowTypeAnalyzer shallowTypeAnalyzer = new ShallowTypeAnalyzer(annotatedApiParser, superTypeCache,
+                analysisHelper);
+        List<List<TypeInfo>> levels = null;
+        try (ShallowAnalyzerMetrics.Measurement ignored = metrics.start(ShallowAnalyzerMetrics.Stage.TYPE_ANALYSIS)) {
+            sortTypes(superTypeCache);
+            if (executor == null) {
+                for (TypeInfo typeInfo : sorted) {
+                    shallowTypeAnalyzer.analyze(typeInfo);
+                }
+            } else {
+                // the first phase reads the type-level analysis of the supertypes
+                levels = levels(sorted, superTypeCache);
+                for (List<TypeInfo> level : levels) {
+                    runAll(level.stream().<Runnable>map(typeInfo -> () -> shallowTypeAnalyzer.analyze(typeInfo))
+                            .toList());
+                }
+            }
+            // the type-level properties are final from here on
+            analysisHelper.invalidateCache();
+        }
+        if (executor != null) {
+            goParallel(shallowTypeAnalyzer, levels, analysisHelper, metrics);
+            return sorted;
+        }
+        ShallowMethodAnalyzer shallowMethodAnalyzer = new ShallowMethodAnalyzer(annotatedApiParser, analysisHelper);
+        try (ShallowAnalyzerMetrics.Measurement ignored = metrics.start(ShallowAnalyzerMetrics.Stage.METHOD_ANALYSIS)) {
+            for (TypeInfo typeInfo : sorted) {
+                analyzeFieldsAndMethods(typeInfo, shallowTypeAnalyzer, shallowMethodAnalyzer, messages);
+            }
+        }
+        try (ShallowAnalyzerMetrics.Measurement ignored = metrics.start(ShallowAnalyzerMetrics.Stage.CHECK)) {
+            for (TypeInfo typeInfo : sorted) {
+                shallowTypeAnalyzer.check(typeInfo);
+            }
+        }
+        messages.addAll(shallowMethodAnalyzer.messages());
+        return sorted;
+    }
+
+    private void sortTypes(SuperTypeCache superTypeCache) {
         List<TypeInfo> types = annotatedApiParser.types();
         allTypes = types.stream().flatMap(TypeInfo::recursiveSubTypeStream)
                 .filter(TypeInfo::isPublic)
-                .flatMap(t -> Stream.concat(Stream.of(t), t.recursiveSuperTypeStream()))
+                .flatMap(t -> Stream.concat(Stream.of(t), superTypeCache.superTypes(t).stream()))
                 .distinct()
                 .toList();
         G.Builder<TypeInfo> graphBuilder = new G.Builder<>(Long::sum);
         for (TypeInfo typeInfo : allTypes) {
-            List<TypeInfo> allSuperTypes = typeInfo.recursiveSuperTypeStream()
+            // with duplicates: the weight of an edge is the number of paths to the supertype
+            List<TypeInfo> allSuperTypes = superTypeCache.superTypes(typeInfo).stream()
                     .filter(TypeInfo::isPublic)
                     .toList();
             graphBuilder.add(typeInfo, allSuperTypes);
@@ -52,33 +107,117 @@ public class ShallowAnalyzer {
         graph = graphBuilder.build();
         Linearize.Result<TypeInfo> linearize = Linearize.linearize(graph, Linearize.LinearizationMode.ALL);
         sorted = linearize.asList(Comparator.comparing(TypeInfo::fullyQualifiedName));
-        for (TypeInfo typeInfo : sorted) {
-            shallowTypeAnalyzer.analyze(typeInfo);
+    }
+
+    private void analyzeFieldsAndMethods(TypeInfo typeInfo,
+                                         ShallowTypeAnalyzer shallowTypeAnalyzer,
+                                         ShallowMethodAnalyzer shallowMethodAnalyzer,
+                                         List<Message> messages) {
+        shallowTypeAnalyzer.analyzeFields(typeInfo);
+        AnnotationCounts ac = countAnnotations(typeInfo);
+        boolean typeIsMutable = typeInfo.analysis()
+                .getOrDefault(PropertyImpl.IMMUTABLE_TYPE, ValueImpl.ImmutableImpl.MUTABLE).isMutable();
+        boolean defaultModifiedMethod = typeIsMutable && ac.notModifiedOnMethod > 0;
+        if (ac.modifiedOnMethod > 0 && ac.notModifiedOnMethod > 0) {
+            messages.add(MessageImpl.warn(typeInfo,
+                    "Mixing @NotModified and @Modified methods; default to @Modified"));
+        }
+        boolean defaultModifiedParameters = ac.notModifiedOnParameter > 0;
+        if (ac.modifiedOnParameter > 0 && ac.notModifiedOnParameter > 0) {
+            messages.add(MessageImpl.warn(typeInfo,
+                    "Mixing @NotModified and @Modified on parameters; default to @Modified"));
         }
-        for (TypeInfo typeInfo : sorted) {
-            shallowTypeAnalyzer.analyzeFields(typeInfo);
-            AnnotationCounts ac = countAnnotations(typeInfo);
-            boolean typeIsMutable = typeInfo.analysis()
-                    .getOrDefault(PropertyImpl.IMMUTABLE_TYPE, ValueImpl.ImmutableImpl.MUTABLE).isMutable();
-            boolean defaultModifiedMethod = typeIsMutable && ac.notModifiedOnMethod > 0;
-            if (ac.modifiedOnMethod > 0 && ac.notModifiedOnMethod > 0) {
-                messages.add(MessageImpl.warn(typeInfo,
-                        "Mixing @NotModified and @Modified methods; default to @Modified"));
+        typeInfo.constructorAndMethodStream()
+                .filter(MethodInfo::isPublic)
+                .forEach(mi -> shallowMethodAnalyzer.analyze(mi, defaultModifiedMethod, defaultModifiedParameters));
+    }
+
+    /*
+    The first phase, in go(), reads the type-level analysis of the supertypes, the middle phase that of the methods
+    they override; both run level by level. The last phase only reads, so all types can be done at the same time.
+    In the middle phase, each type gets its own bucket for messages, and its own method analyzer; the buckets are
+    concatenated in the order of 'sorted' afterward, so that the messages end up in the same order as in a
+    sequential run.
+     */
+    private void goParallel(ShallowTypeAnalyzer shallowTypeAnalyzer, List<List<TypeInfo>> levels,
+                            AnalysisHelper analysisHelper, ShallowAnalyzerMetrics metrics) {
+        Map<TypeInfo, List<Message>> typeMessages = new HashMap<>();
+        Map<TypeInfo, ShallowMethodAnalyzer> methodAnalyzers = new HashMap<>();
+        try (ShallowAnalyzerMetrics.Measurement ignored = metrics.start(ShallowAnalyzerMetrics.Stage.METHOD_ANALYSIS)) {
+            for (TypeInfo typeInfo : sorted) {
+                typeMessages.put(typeInfo, new ArrayList<>());
+                methodAnalyzers.put(typeInfo, new ShallowMethodAnalyzer(annotatedApiParser, analysisHelper));
             }
-            boolean defaultModifiedParameters = ac.notModifiedOnParameter > 0;
-            if (ac.modifiedOnParameter > 0 && ac.notModifiedOnParameter > 0) {
-                messages.add(MessageImpl.warn(typeInfo,
-                        "Mixing @NotModified and @Modified on parameters; default to @Modified"));
+            for (List<TypeInfo> level : levels) {
+                runAll(level.stream().<Runnable>map(typeInfo -> () -> analyzeFieldsAndMethods(typeInfo,
+                        shallowTypeAnalyzer, methodAnalyzers.get(typeInfo), typeMessages.get(typeInfo))).toList());
             }
-            typeInfo.constructorAndMethodStream()
-                    .filter(MethodInfo::isPublic)
-                    .forEach(mi -> shallowMethodAnalyzer.analyze(mi, defaultModifiedMethod, defaultModifiedParameters));
         }
-        for (TypeInfo typeInfo : sorted) {
-            shallowTypeAnalyzer.check(typeInfo);
+        try (ShallowAnalyzerMetrics.Measurement ignored = metrics.start(ShallowAnalyzerMetrics.Stage.CHECK)) {
+            runAll(sorted.stream().<Runnable>map(typeInfo -> () -> shallowTypeAnalyzer.check(typeInfo)).toList());
+        }
+
+        sorted.forEach(typeInfo -> messages.addAll(typeMessages.get(typeInfo)));
+        sorted.forEach(typeInfo -> messages.addAll(methodAnalyzers.get(typeInfo).messages()));
+    }
+
+    /*
+    Splits the linearization into levels, such that a type and any of its supertypes end up in different levels,
+    in the same relative order as in the linearization. Within a phase, a type only reads the analysis of itself
+    and of its supertypes (apart from the type-level properties computed in the first phase), so types in the
+    same level can be analyzed at the same time, and running the levels one after the other gives exactly the
+    same result as running the linearization in order.
+
+    Note that non-public supertypes are not part of the graph, and can come after their subtypes in the
+    linearization. Then they must come after their subtypes in the levels as well.
+     */
+    static List<List<TypeInfo>> levels(List<TypeInfo> sorted) {
+        return levels(sorted, new SuperTypeCache());
+    }
+
+    static List<List<TypeInfo>> levels(List<TypeInfo> sorted, SuperTypeCache superTypeCache) {
+        Map<TypeInfo, Integer> position = new HashMap<>();
+        for (int i = 0; i < sorted.size(); i++) {
+            position.put(sorted.get(i), i);
+        }
+        int[] level = new int[sorted.size()];
+        Map<TypeInfo, Integer> minimumLevel = new HashMap<>();
+        List<List<TypeInfo>> levels = new ArrayList<>();
+        for (int i = 0; i < sorted.size(); i++) {
+            TypeInfo typeInfo = sorted.get(i);
+            List<TypeInfo> superTypes = superTypeCache.distinctSuperTypes(typeInfo);
+            int l = minimumLevel.getOrDefault(typeInfo, 0);
+            for (TypeInfo superType : superTypes) {
+                Integer p = position.get(superType);
+                if (p != null && p < i) l = Math.max(l, level[p] + 1);
+            }
+            level[i] = l;
+            for (TypeInfo superType : superTypes) {
+                Integer p = position.get(superType);
+                if (p != null && p > i) minimumLevel.merge(superType, l + 1, Math::max);
+            }
+            while (levels.size() <= l) levels.add(new ArrayList<>());
+            levels.get(l).add(typeInfo);
+        }
+        return levels;
+    }
+
+    private void runAll(List<Runnable> tasks) {
+        List<Future<?>> futures = tasks.stream().<Future<?>>map(executor::submit).toList();
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                throw new IllegalStateException("Interrupted while analyzing types", e);
+            } catch (ExecutionException e) {
+                futures.forEach(f -> f.cancel(true));
+                if (e.getCause() instanceof RuntimeException re) throw re;
+                if (e.getCause() instanceof Error error) throw error;
+                throw new IllegalStateException(e.getCause());
+            }
         }
-        messages.addAll(shallowMethodAnalyzer.messages());
-        return sorted;
     }
 
     public List<Message> getMessages() {
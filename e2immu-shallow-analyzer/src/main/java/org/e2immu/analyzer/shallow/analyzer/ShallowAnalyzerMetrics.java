@@ -0,0 +1,128 @@
+package org.e2immu.analyzer.shallow.analyzer;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+Wall time, CPU time and allocated bytes per stage of a run of the shallow analyzer, and some counts.
+Filled in by AnnotatedApiParser, ShallowAnalyzer and Run; exported as JSON by Run, so that trends can be followed
+across builds.
+
+CPU time and allocated bytes are measured for the whole process, so that the work of parallel stages is included.
+The stages follow each other; a stage that is entered several times (e.g. once per AAPI source file) accumulates.
+CPU time and allocated bytes remain 0 when the JVM cannot measure them.
+ */
+public class ShallowAnalyzerMetrics {
+
+    public enum Stage {
+        INSPECTION("inspection"),
+        LOAD_ANALYZED_PACKAGES("loadAnalyzedPackages"),
+        PARSE("parse"),
+        TRANSFER_ANNOTATIONS("transferAnnotations"),
+        // incremental mode of Run: loading the analyzed package files of the previous run
+        LOAD_UNCHANGED_PACKAGES("loadUnchangedPackages"),
+        TYPE_ANALYSIS("typeAnalysis"),
+        METHOD_ANALYSIS("methodAnalysis"),
+        CHECK("check"),
+        PREP_ANALYSIS("prepAnalysis"),
+        WRITE_ANALYSIS("writeAnalysis"),
+        WRITE_DECORATED("writeDecorated");
+
+        public final String key;
+
+        Stage(String key) {
+            this.key = key;
+        }
+    }
+
+    public record Totals(long wallNanos, long cpuNanos, long allocatedBytes, int entered) {
+        static final Totals ZERO = new Totals(0, 0, 0, 0);
+
+        Totals plus(long wall, long cpu, long allocated) {
+            return new Totals(wallNanos + wall, cpuNanos + cpu, allocatedBytes + allocated, entered + 1);
+        }
+    }
+
+    // for use in try-with-resources; the measurement is recorded when closed
+    public interface Measurement extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private final Map<Stage, Totals> stages = new EnumMap<>(Stage.class);
+    private final Map<String, Long> counts = new LinkedHashMap<>();
+
+    public Measurement start(Stage stage) {
+        long wall = System.nanoTime();
+        long cpu = processCpuTime();
+        long allocated = allocatedBytes();
+        return () -> add(stage, System.nanoTime() - wall, processCpuTime() - cpu, allocatedBytes() - allocated);
+    }
+
+    private synchronized void add(Stage stage, long wall, long cpu, long allocated) {
+        stages.put(stage, stages.getOrDefault(stage, Totals.ZERO).plus(wall, cpu, allocated));
+    }
+
+    public synchronized void count(String name, long value) {
+        counts.put(name, value);
+    }
+
+    public synchronized Totals totals(Stage stage) {
+        return stages.get(stage);
+    }
+
+    public synchronized Map<String, Long> counts() {
+        return Map.copyOf(counts);
+    }
+
+    /*
+    {"stages":{"inspection":{"wallNanos":1,"cpuNanos":2,"allocatedBytes":3,"entered":1},...},"counts":{"types":4,...}}
+    Stages that have not been entered are left out.
+     */
+    public synchronized String toJson() {
+        StringBuilder sb = new StringBuilder("{\"stages\":{");
+        boolean first = true;
+        for (Map.Entry<Stage, Totals> entry : stages.entrySet()) {
+            if (!first) sb.append(',');
+            first = false;
+            Totals t = entry.getValue();
+            sb.append('"').append(entry.getKey().key).append("\":{\"wallNanos\":").append(t.wallNanos)
+                    .append(",\"cpuNanos\":").append(t.cpuNanos)
+                    .append(",\"allocatedBytes\":").append(t.allocatedBytes)
+                    .append(",\"entered\":").append(t.entered).append('}');
+        }
+        sb.append("},\"counts\":{");
+        first = true;
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            if (!first) sb.append(',');
+            first = false;
+            sb.append('"').append(entry.getKey()).append("\":").append(entry.getValue());
+        }
+        return sb.append("}}").toString();
+    }
+
+    public void write(Path file) throws IOException {
+        Files.writeString(file, toJson() + "\n", StandardCharsets.UTF_8);
+    }
+
+    private static long processCpuTime() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            return Math.max(0, os.getProcessCpuTime());
+        }
+        return 0;
+    }
+
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+            && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            return Math.max(0, threads.getTotalThreadAllocatedBytes());
+        }
+        return 0;
+    }
+}
@@ -30,8 +30,12 @@ public class ShallowMethodAnalyzer extends CommonAnalyzer {
     private final List<Message> messages = new LinkedList<>();
 
     public ShallowMethodAnalyzer(AnnotationProvider annotationProvider) {
+        this(annotationProvider, new AnalysisHelper());
+    }
+
+    public ShallowMethodAnalyzer(AnnotationProvider annotationProvider, AnalysisHelper analysisHelper) {
         super(annotationProvider);
-        this.analysisHelper = new AnalysisHelper();
+        this.analysisHelper = analysisHelper;
     }
 
     public void analyze(MethodInfo methodInfo) {
@@ -49,13 +53,16 @@ public class ShallowMethodAnalyzer extends CommonAnalyzer {
         List<AnnotationExpression> annotations = annotationProvider.annotations(methodInfo);
         Map<Property, Value> map = annotationsToMap(methodInfo, annotations);
 
-        methodPropertiesBeforeParameters(methodInfo, map, explicitlyEmpty, defaultModifiedMethod);
+        OverrideValues overrideValues = new OverrideValues(methodInfo);
+
+        methodPropertiesBeforeParameters(methodInfo, map, explicitlyEmpty, defaultModifiedMethod, overrideValues);
 
         for (ParameterInfo parameterInfo : methodInfo.parameters()) {
-            handleParameter(parameterInfo, map, explicitlyEmpty, defaultModifiedParameter);
+            handleParameter(parameterInfo, map, explicitlyEmpty, defaultModifiedParameter,
+                    overrideValues.parameters[parameterInfo.index()]);
         }
 
-        methodPropertiesAfterParameters(methodInfo, map);
+        methodPropertiesAfterParameters(methodInfo, map, overrideValues);
 
         map.forEach((p, v) -> {
             if (!methodInfo.analysis().haveAnalyzedValueFor(p)) {
@@ -64,7 +71,122 @@ public class ShallowMethodAnalyzer extends CommonAnalyzer {
         });
     }
 
-    private Value.Bool computeMethodContainer(MethodInfo methodInfo) {
+    private static final List<Property> BOOLEANS_FROM_OVERRIDE = List.of(FLUENT_METHOD, IDENTITY_METHOD,
+            STATIC_SIDE_EFFECTS_METHOD, METHOD_ALLOWS_INTERRUPTS, MODIFIED_METHOD);
+
+    /*
+    Everything the analysis of a method reads from the methods it overrides, gathered in a single pass over
+    methodInfo.overrides(). Overrides without a value for a property are remembered rather than reported
+    immediately: a hierarchy problem is only reported when the property is actually needed.
+     */
+    private class OverrideValues {
+        private final MethodInfo methodInfo;
+        private Value.Bool container = FALSE;
+        private Value.NotNull notNull = NULLABLE;
+        private Value.Independent independent = DEPENDENT;
+        private final Map<Property, Value.Bool> booleans = new HashMap<>();
+        private final Map<Property, List<MethodInfo>> missing = new HashMap<>();
+        private final ParameterOverrideValues[] parameters;
+
+        OverrideValues(MethodInfo methodInfo) {
+            this.methodInfo = methodInfo;
+            int n = methodInfo.parameters().size();
+            parameters = new ParameterOverrideValues[n];
+            for (int i = 0; i < n; i++) {
+                parameters[i] = new ParameterOverrideValues(methodInfo.parameters().get(i));
+            }
+            for (MethodInfo override : methodInfo.overrides()) {
+                container = container.or(override.analysis().getOrDefault(CONTAINER_TYPE, FALSE));
+                boolean isPublic = override.isPublic();
+                if (isPublic) {
+                    notNull = notNull.max(override.analysis().getOrDefault(NOT_NULL_METHOD, NULLABLE));
+                    independent = independent.max(override.analysis().getOrDefault(INDEPENDENT_METHOD, DEPENDENT));
+                    for (Property property : BOOLEANS_FROM_OVERRIDE) {
+                        if (override.analysis().haveAnalyzedValueFor(property)) {
+                            Value.Bool value = override.analysis().getOrDefault(property, FALSE);
+                            booleans.merge(property, value, Value.Bool::or);
+                        } else {
+                            missing.computeIfAbsent(property, p -> new ArrayList<>()).add(override);
+                        }
+                    }
+                }
+                for (int i = 0; i < n; i++) {
+                    parameters[i].add(override.parameters().get(i), isPublic);
+                }
+            }
+        }
+
+        /*
+        The 'or' of the values of the public overrides which have a value; null when none of them has one.
+         */
+        Value.Bool bool(Property property) {
+            for (MethodInfo m : missing.getOrDefault(property, List.of())) {
+                if (hierarchyProblems.computeIfAbsent(methodInfo.typeInfo(), t -> new HashSet<>()).add(m.typeInfo())) {
+                    if (MODIFIED_METHOD.equals(property)) {
+                        LOGGER.warn("Have no modification value for {}, overridden by {}", m, methodInfo);
+                    } else {
+                        LOGGER.warn("Have no {} value for {}, overridden by {}", property.key(), m, methodInfo);
+                    }
+                }
+            }
+            return booleans.get(property);
+        }
+    }
+
+    private class ParameterOverrideValues {
+        private final ParameterInfo parameterInfo;
+        private Value.NotNull notNull = NULLABLE;
+        private Value.Independent independent = DEPENDENT;
+        private Value.Bool modified = ValueImpl.BoolImpl.NO_VALUE;
+        private final List<ParameterInfo> missingNotNull = new ArrayList<>();
+        private final List<ParameterInfo> missingIndependent = new ArrayList<>();
+
+        ParameterOverrideValues(ParameterInfo parameterInfo) {
+            this.parameterInfo = parameterInfo;
+        }
+
+        void add(ParameterInfo pi, boolean isPublic) {
+            modified = modified.or(pi.analysis().getOrDefault(MODIFIED_PARAMETER, ValueImpl.BoolImpl.NO_VALUE));
+            if (!isPublic) return;
+            if (pi.analysis().haveAnalyzedValueFor(NOT_NULL_PARAMETER)) {
+                notNull = notNull.max(pi.analysis().getOrDefault(NOT_NULL_PARAMETER, NULLABLE));
+            } else {
+                missingNotNull.add(pi);
+            }
+            if (pi.analysis().haveAnalyzedValueFor(INDEPENDENT_PARAMETER)) {
+                independent = independent.max(pi.analysis().getOrDefault(INDEPENDENT_PARAMETER, DEPENDENT));
+            } else {
+                missingIndependent.add(pi);
+            }
+        }
+
+        Value.NotNull notNull() {
+            for (ParameterInfo pi : missingNotNull) {
+                if (addHierarchyProblem(pi)) {
+                    LOGGER.warn("Have no @NotNull value for the parameters of {}, overridden by {}", pi,
+                            parameterInfo.methodInfo());
+                }
+            }
+            return notNull;
+        }
+
+        Value.Independent independent() {
+            for (ParameterInfo pi : missingIndependent) {
+                if (addHierarchyProblem(pi)) {
+                    LOGGER.warn("Have no @Independent value for the parameters of {}, overridden by {}", pi,
+                            parameterInfo.methodInfo());
+                }
+            }
+            return independent;
+        }
+
+        private boolean addHierarchyProblem(ParameterInfo pi) {
+            return hierarchyProblems.computeIfAbsent(parameterInfo.methodInfo().typeInfo(), t -> new HashSet<>())
+                    .add(pi.methodInfo().typeInfo());
+        }
+    }
+
+    private Value.Bool computeMethodContainer(MethodInfo methodInfo, OverrideValues overrideValues) {
         ParameterizedType returnType = methodInfo.returnType();
         if (returnType.arrays() > 0 || returnType.isPrimitiveExcludingVoid() || returnType.isVoid()) {
             return TRUE;
@@ -79,9 +201,7 @@ public class ShallowMethodAnalyzer extends CommonAnalyzer {
 
         // check formal return type
         Value.Bool fromReturnType = bestType.analysis().getOrDefault(CONTAINER_TYPE, FALSE);
-        Value.Bool bestOfOverrides = methodInfo.overrides().stream()
-                .map(mi -> mi.analysis().getOrDefault(CONTAINER_TYPE, FALSE))
-                .reduce(FALSE, Value.Bool::or);
+        Value.Bool bestOfOverrides = overrideValues.container;
         Value.Bool formal = bestOfOverrides.or(fromReturnType);
         if (formal.isTrue()) return formal;
 
@@ -93,10 +213,11 @@ public class ShallowMethodAnalyzer extends CommonAnalyzer {
         return FALSE;
     }
 
-    private void methodPropertiesAfterParameters(MethodInfo methodInfo, Map<Property, Value> map) {
+    private void methodPropertiesAfterParameters(MethodInfo methodInfo, Map<Property, Value> map,
+                                                 OverrideValues overrideValues) {
         Value.Bool c = (Value.Bool) map.get(CONTAINER_METHOD);
         if (c == null) {
-            map.put(CONTAINER_METHOD, computeMethodContainer(methodInfo));
+            map.put(CONTAINER_METHOD, computeMethodContainer(methodInfo, overrideValues));
         }
         Value.Immutable imm = (Value.Immutable) map.get(IMMUTABLE_METHOD);
         if (imm == null) {
@@ -104,25 +225,23 @@ public class ShallowMethodAnalyzer extends CommonAnalyzer {
         }
         Value.Independent ind = (Value.Independent) map.get(INDEPENDENT_METHOD);
         if (ind == null) {
-            map.put(INDEPENDENT_METHOD, computeMethodIndependent(methodInfo, map));
+            map.put(INDEPENDENT_METHOD, computeMethodIndependent(methodInfo, map, overrideValues));
         }
         Value.NotNull nn = (Value.NotNull) map.get(NOT_NULL_METHOD);
         if (nn == null) {
-            map.put(NOT_NULL_METHOD, computeMethodNotNull(methodInfo, map));
+            map.put(NOT_NULL_METHOD, computeMethodNotNull(methodInfo, map, overrideValues));
         }
     }
 
-    private Value.NotNull computeMethodNotNull(MethodInfo methodInfo, Map<Property, Value> map) {
+    private Value.NotNull computeMethodNotNull(MethodInfo methodInfo, Map<Property, Value> map,
+                                               OverrideValues overrideValues) {
         if (methodInfo.isConstructor() || methodInfo.isVoid()) return ValueImpl.NotNullImpl.NO_VALUE;
         if (methodInfo.returnType().isPrimitiveExcludingVoid()) {
             return NOT_NULL;
         }
         Value.Bool fluent = (Value.Bool) map.get(FLUENT_METHOD);
         if (fluent.isTrue()) return NOT_NULL;
-        return methodInfo.overrides().stream()
-                .filter(MethodInfo::isPublic)
-                .map(mi -> mi.analysis().getOrDefault(NOT_NULL_METHOD, NULLABLE))
-                .reduce(NULLABLE, Value.NotNull::max);
+        return overrideValues.notNull;
     }
 
     private Value.Immutable computeMethodImmutable(MethodInfo methodInfo) {
@@ -136,15 +255,13 @@ public class ShallowMethodAnalyzer extends CommonAnalyzer {
     }
 
 
-    private Value.Independent computeMethodIndependent(MethodInfo methodInfo, Map<Property, Value> map) {
+    private Value.Independent computeMethodIndependent(MethodInfo methodInfo, Map<Property, Value> map,
+                                                       OverrideValues overrideValues) {
         Value.Independent returnValueIndependent = computeMethodIndependentReturnValue(methodInfo, map);
 
         // typeIndependent is set by hand in AnnotatedAPI files
         Value.Independent typeIndependent = methodInfo.typeInfo().analysis().getOrDefault(INDEPENDENT_TYPE, DEPENDENT);
-        Value.Independent bestOfOverrides = methodInfo.overrides().stream()
-                .filter(MethodInfo::isPublic)
-                .map(mi -> mi.analysis().getOrDefault(INDEPENDENT_METHOD, DEPENDENT))
-                .reduce(DEPENDENT, Value.Independent::max);
+        Value.Independent bestOfOverrides = overrideValues.independent;
         Value.Independent result = returnValueIndependent.max(bestOfOverrides).max(typeIndependent);
 
         if (result.isIndependentHc() && methodInfo.isFactoryMethod()) {
@@ -195,7 +312,8 @@ public class ShallowMethodAnalyzer extends CommonAnalyzer {
 
     private void methodPropertiesBeforeParameters(MethodInfo methodInfo, Map<Property, Value> map,
                                                   boolean explicitlyEmpty,
-                                                  boolean defaultModifiedMethod) {
+                                                  boolean defaultModifiedMethod,
+                                                  OverrideValues overrideValues) {
         if (methodInfo.isConstructor()) {
             map.put(FLUENT_METHOD, FALSE);
             map.put(IDENTITY_METHOD, FALSE);
@@ -208,7 +326,7 @@ public class ShallowMethodAnalyzer extends CommonAnalyzer {
                     LOGGER.warn("Impossible! how can a method without statements be @Fluent?");
                 }
             } else {
-                map.put(FLUENT_METHOD, explicitlyEmpty ? FALSE : computeMethodFluent(methodInfo));
+                map.put(FLUENT_METHOD, explicitlyEmpty ? FALSE : computeMethodFluent(methodInfo, overrideValues));
             }
             Value.Bool identity = (Value.Bool) map.get(IDENTITY_METHOD);
             if (identity != null) {
@@ -221,7 +339,7 @@ public class ShallowMethodAnalyzer extends CommonAnalyzer {
                 }
             } else {
                 map.put(IDENTITY_METHOD, explicitlyEmpty || methodInfo.parameters().isEmpty()
-                        ? FALSE : computeMethodIdentity(methodInfo));
+                        ? FALSE : computeMethodIdentity(overrideValues));
             }
 
             Value.Bool staticSideEffects = (Value.Bool) map.get(STATIC_SIDE_EFFECTS_METHOD);
@@ -231,7 +349,7 @@ public class ShallowMethodAnalyzer extends CommonAnalyzer {
                             "Impossible! how can a method without statements be @StaticSideEffects?"));
                 }
             } else {
-                map.put(STATIC_SIDE_EFFECTS_METHOD, explicitlyEmpty ? FALSE : computeStaticSideEffects(methodInfo));
+                map.put(STATIC_SIDE_EFFECTS_METHOD, explicitlyEmpty ? FALSE : computeStaticSideEffects(overrideValues));
             }
 
             Value.Bool modified = (Value.Bool) map.get(MODIFIED_METHOD);
@@ -242,7 +360,7 @@ public class ShallowMethodAnalyzer extends CommonAnalyzer {
                 }
             } else {
                 map.put(MODIFIED_METHOD, explicitlyEmpty ? FALSE
-                        : computeMethodModified(methodInfo, map, defaultModifiedMethod));
+                        : computeMethodModified(methodInfo, map, defaultModifiedMethod, overrideValues));
             }
             Value.Bool allowsInterrupt = (Value.Bool) map.get(METHOD_ALLOWS_INTERRUPTS);
             if (allowsInterrupt != null) {
@@ -251,7 +369,7 @@ public class ShallowMethodAnalyzer extends CommonAnalyzer {
                             "Impossible! how can a method without statements be @AllowInterrupt?"));
                 }
             } else {
-                map.put(METHOD_ALLOWS_INTERRUPTS, explicitlyEmpty ? FALSE : computeAllowInterrupt(methodInfo));
+                map.put(METHOD_ALLOWS_INTERRUPTS, explicitlyEmpty ? FALSE : computeAllowInterrupt(overrideValues));
             }
         }
     }
@@ -259,7 +377,8 @@ public class ShallowMethodAnalyzer extends CommonAnalyzer {
     private void handleParameter(ParameterInfo parameterInfo,
                                  Map<Property, Value> methodMap,
                                  boolean explicitlyEmpty,
-                                 boolean defaultModifiedParameter) {
+                                 boolean defaultModifiedParameter,
+                                 ParameterOverrideValues overrideValues) {
         List<AnnotationExpression> annotations = annotationProvider.annotations(parameterInfo);
         Map<Property, Value> map = annotationsToMap(parameterInfo, annotations);
         if (explicitlyEmpty) {
@@ -287,15 +406,16 @@ public class ShallowMethodAnalyzer extends CommonAnalyzer {
             }
             Value.Independent ind = (Value.Independent) map.get(INDEPENDENT_PARAMETER);
             if (ind == null) {
-                map.put(INDEPENDENT_PARAMETER, computeParameterIndependent(parameterInfo, methodMap, map));
+                map.put(INDEPENDENT_PARAMETER, computeParameterIndependent(parameterInfo, methodMap, map, overrideValues));
             }
             Value.Bool mod = (Value.Bool) map.get(MODIFIED_PARAMETER);
             if (mod == null) {
-                map.put(MODIFIED_PARAMETER, computeParameterModified(parameterInfo, defaultModifiedParameter));
+                map.put(MODIFIED_PARAMETER, computeParameterModified(parameterInfo, defaultModifiedParameter,
+                        overrideValues));
             }
             Value.NotNull nn = (NotNull) map.get(NOT_NULL_PARAMETER);
             if (nn == null) {
-                map.put(NOT_NULL_PARAMETER, computeParameterNotNull(parameterInfo));
+                map.put(NOT_NULL_PARAMETER, computeParameterNotNull(parameterInfo, overrideValues));
             }
             Value.Bool ign = (Bool) map.get(IGNORE_MODIFICATIONS_PARAMETER);
             if (ign == null) {
@@ -319,23 +439,14 @@ public class ShallowMethodAnalyzer extends CommonAnalyzer {
                                        && "java.util.function".equals(pt.typeInfo().packageName()));
     }
 
-    private Value.NotNull computeParameterNotNull(ParameterInfo parameterInfo) {
+    private Value.NotNull computeParameterNotNull(ParameterInfo parameterInfo, ParameterOverrideValues overrideValues) {
         ParameterizedType pt = parameterInfo.parameterizedType();
         if (pt.isPrimitiveExcludingVoid()) return NOT_NULL;
-        MethodInfo methodInfo = parameterInfo.methodInfo();
-        return methodInfo.overrides().stream()
-                .filter(MethodInfo::isPublic)
-                .map(mi -> mi.parameters().get(parameterInfo.index()))
-                .filter(pi -> pi.analysis().haveAnalyzedValueFor(NOT_NULL_PARAMETER, () -> {
-                    if (hierarchyProblems.computeIfAbsent(methodInfo.typeInfo(), t -> new HashSet<>()).add(pi.methodInfo().typeInfo())) {
-                        LOGGER.warn("Have no @NotNull value for the parameters of {}, overridden by {}", pi, methodInfo);
-                    }
-                }))
-                .map(pi -> pi.analysis().getOrDefault(NOT_NULL_PARAMETER, NULLABLE))
-                .reduce(NULLABLE, Value.NotNull::max);
+        return overrideValues.notNull();
     }
 
-    private Value.Bool computeParameterModified(ParameterInfo parameterInfo, boolean defaultParameterModified) {
+    private Value.Bool computeParameterModified(ParameterInfo parameterInfo, boolean defaultParameterModified,
+                                                ParameterOverrideValues overrideValues) {
         MethodInfo methodInfo = parameterInfo.methodInfo();
         Value.Bool typeContainer = methodInfo.typeInfo().analysis().getOrDefault(CONTAINER_TYPE, FALSE);
         if (typeContainer.isTrue()) {
@@ -349,10 +460,7 @@ public class ShallowMethodAnalyzer extends CommonAnalyzer {
         if (typeImmutable != null && typeImmutable.isAtLeastImmutableHC()) {
             return FALSE;
         }
-        Value.Bool override = methodInfo.overrides().stream()
-                .map(mi -> mi.parameters().get(parameterInfo.index()))
-                .map(pi -> pi.analysis().getOrDefault(MODIFIED_PARAMETER, ValueImpl.BoolImpl.NO_VALUE))
-                .reduce(ValueImpl.BoolImpl.NO_VALUE, Value.Bool::or);
+        Value.Bool override = overrideValues.modified;
         if (override.hasAValue()) {
             return override;
         }
@@ -362,7 +470,8 @@ public class ShallowMethodAnalyzer extends CommonAnalyzer {
 
     private Value.Independent computeParameterIndependent(ParameterInfo parameterInfo,
                                                           Map<Property, Value> methodMap,
-                                                          Map<Property, Value> map) {
+                                                          Map<Property, Value> map,
+                                                          ParameterOverrideValues overrideValues) {
         ParameterizedType type = parameterInfo.parameterizedType();
         Value.Immutable immutable = (Value.Immutable) map.get(PropertyImpl.IMMUTABLE_PARAMETER);
         MethodInfo methodInfo = parameterInfo.methodInfo();
@@ -383,23 +492,14 @@ public class ShallowMethodAnalyzer extends CommonAnalyzer {
                 value = INDEPENDENT;
             }
         }
-        Value.Independent override = methodInfo.overrides().stream()
-                .filter(MethodInfo::isPublic)
-                .map(mi -> mi.parameters().get(parameterInfo.index()))
-                .filter(pi -> pi.analysis().haveAnalyzedValueFor(INDEPENDENT_PARAMETER, () -> {
-                    if (hierarchyProblems.computeIfAbsent(methodInfo.typeInfo(), t -> new HashSet<>()).add(pi.methodInfo().typeInfo())) {
-                        LOGGER.warn("Have no @Independent value for the parameters of {}, overridden by {}", pi, methodInfo);
-                    }
-                }))
-                .map(pi -> pi.analysis().getOrDefault(INDEPENDENT_PARAMETER, DEPENDENT))
-                .reduce(DEPENDENT, Value.Independent::max);
-        return override.max(value);
+        return overrideValues.independent().max(value);
     }
 
 
     private Value computeMethodModified(MethodInfo methodInfo,
                                         Map<Property, Value> map,
-                                        boolean defaultModifiedMethod) {
+                                        boolean defaultModifiedMethod,
+                                        OverrideValues overrideValues) {
         if (methodInfo.isConstructor()) return TRUE;
         Value.Bool sse = (Value.Bool) map.get(STATIC_SIDE_EFFECTS_METHOD);
         if (sse != null && sse.isTrue()) return FALSE;
@@ -407,53 +507,31 @@ public class ShallowMethodAnalyzer extends CommonAnalyzer {
         if (fluent != null && fluent.isTrue()) return TRUE;
         boolean nonStaticVoid = !methodInfo.isStatic() && methodInfo.noReturnValue();
         if (nonStaticVoid) return TRUE;
-        Boolean fromOverride = methodInfo.overrides().stream()
-                .filter(MethodInfo::isPublic)
-                .filter(m -> m.analysis().haveAnalyzedValueFor(MODIFIED_METHOD, () -> {
-                    if (hierarchyProblems.computeIfAbsent(methodInfo.typeInfo(), t -> new HashSet<>()).add(m.typeInfo())) {
-                        LOGGER.warn("Have no modification value for {}, overridden by {}", m, methodInfo);
-                    }
-                }))
-                .map(m -> m.analysis().getOrNull(MODIFIED_METHOD, ValueImpl.BoolImpl.class))
-                .map(v -> v == null ? null : v.isTrue())
-                .reduce(null, ShallowMethodAnalyzer::nullOr);
+        Value.Bool fromOverride = overrideValues.bool(MODIFIED_METHOD);
         if (fromOverride == null) return defaultModifiedMethod ? TRUE : FALSE;
-        return ValueImpl.BoolImpl.from(fromOverride);
-    }
-
-    private static Boolean nullOr(Boolean b1, Boolean b2) {
-        if (b1 == null) return b2;
-        if (b2 == null) return b1;
-        return b1 || b2;
+        return fromOverride;
     }
 
-    private Value computeMethodFluent(MethodInfo methodInfo) {
+    private Value computeMethodFluent(MethodInfo methodInfo, OverrideValues overrideValues) {
         if (methodInfo.returnType().typeInfo() != methodInfo.typeInfo()) return FALSE;
-        return commonBooleanFromOverride(FLUENT_METHOD, methodInfo);
+        return commonBooleanFromOverride(FLUENT_METHOD, overrideValues);
     }
 
-    private Value computeMethodIdentity(MethodInfo methodInfo) {
-        return commonBooleanFromOverride(IDENTITY_METHOD, methodInfo);
+    private Value computeMethodIdentity(OverrideValues overrideValues) {
+        return commonBooleanFromOverride(IDENTITY_METHOD, overrideValues);
     }
 
-    private Value computeStaticSideEffects(MethodInfo methodInfo) {
-        return commonBooleanFromOverride(STATIC_SIDE_EFFECTS_METHOD, methodInfo);
+    private Value computeStaticSideEffects(OverrideValues overrideValues) {
+        return commonBooleanFromOverride(STATIC_SIDE_EFFECTS_METHOD, overrideValues);
     }
 
-    private Value computeAllowInterrupt(MethodInfo methodInfo) {
-        return commonBooleanFromOverride(METHOD_ALLOWS_INTERRUPTS, methodInfo);
+    private Value computeAllowInterrupt(OverrideValues overrideValues) {
+        return commonBooleanFromOverride(METHOD_ALLOWS_INTERRUPTS, overrideValues);
     }
 
-    private Value commonBooleanFromOverride(Property property, MethodInfo methodInfo) {
-        return methodInfo.overrides().stream()
-                .filter(MethodInfo::isPublic)
-                .filter(m -> m.analysis().haveAnalyzedValueFor(property, () -> {
-                    if (hierarchyProblems.computeIfAbsent(methodInfo.typeInfo(), t -> new HashSet<>()).add(m.typeInfo())) {
-                        LOGGER.warn("Have no {} value for {}, overridden by {}", property.key(), m, methodInfo);
-                    }
-                }))
-                .map(m -> m.analysis().getOrDefault(property, FALSE))
-                .reduce(FALSE, Value.Bool::or);
+    private Value commonBooleanFromOverride(Property property, OverrideValues overrideValues) {
+        Value.Bool fromOverride = overrideValues.bool(property);
+        return fromOverride == null ? FALSE : fromOverride;
     }
 
     public Map<TypeInfo, Set<TypeInfo>> getHierarchyProblems() {
@@ -25,11 +25,22 @@ import static org.e2immu.language.cst.impl.analysis.ValueImpl.NotNullImpl.NULLAB
 
 public class ShallowTypeAnalyzer extends CommonAnalyzer {
     private static final Logger LOGGER = LoggerFactory.getLogger(ShallowTypeAnalyzer.class);
-    private final AnalysisHelper analysisHelper = new AnalysisHelper();
+    private final AnalysisHelper analysisHelper;
     private final AtomicInteger warnings = new AtomicInteger();
 
     public ShallowTypeAnalyzer(AnnotationProvider annotationProvider) {
         super(annotationProvider);
+        this.analysisHelper = new AnalysisHelper();
+    }
+
+    public ShallowTypeAnalyzer(AnnotationProvider annotationProvider, SuperTypeCache superTypeCache) {
+        this(annotationProvider, superTypeCache, new AnalysisHelper());
+    }
+
+    public ShallowTypeAnalyzer(AnnotationProvider annotationProvider, SuperTypeCache superTypeCache,
+                               AnalysisHelper analysisHelper) {
+        super(annotationProvider, superTypeCache);
+        this.analysisHelper = analysisHelper;
     }
 
     public void analyze(TypeInfo typeInfo) {
@@ -134,7 +145,7 @@ public class ShallowTypeAnalyzer extends CommonAnalyzer {
             Value.Immutable least = leastOfHierarchy(typeInfo, IMMUTABLE_TYPE, MUTABLE, IMMUTABLE_HC);
             if (!least.isAtLeastImmutableHC()) {
                 LOGGER.warn("@Immutable inconsistency in hierarchy: have {} for {}, but:", immutable, typeInfo);
-                typeInfo.recursiveSuperTypeStream().filter(TypeInfo::isPublic).distinct()
+                superTypeCache.distinctPublicSuperTypes(typeInfo)
                         .forEach(ti -> {
                             LOGGER.warn("  -- {}: {}", ti, ti.analysis().getOrDefault(IMMUTABLE_TYPE, MUTABLE));
                         });
@@ -159,7 +170,7 @@ public class ShallowTypeAnalyzer extends CommonAnalyzer {
             if (least.lt(container)) {
                 LOGGER.warn("@Container inconsistency in hierarchy: true for {}, but not for all types in its hierarchy: {}",
                         typeInfo, least);
-                typeInfo.recursiveSuperTypeStream().filter(TypeInfo::isPublic).distinct()
+                superTypeCache.distinctPublicSuperTypes(typeInfo)
                         .forEach(ti -> {
                             LOGGER.warn("  -- {}: {}", ti, ti.analysis().getOrDefault(CONTAINER_TYPE, FALSE));
                         });
@@ -172,7 +183,7 @@ public class ShallowTypeAnalyzer extends CommonAnalyzer {
             if (least.lt(independent)) {
                 LOGGER.warn("@Independent inconsistency in hierarchy: value for {} is {}, but not for all types in its hierarchy: {}",
                         typeInfo, independent, least);
-                typeInfo.recursiveSuperTypeStream().filter(TypeInfo::isPublic).distinct()
+                superTypeCache.distinctPublicSuperTypes(typeInfo)
                         .forEach(ti -> {
                             LOGGER.warn("  -- {}: {}", ti, ti.analysis().getOrDefault(INDEPENDENT_TYPE, DEPENDENT));
                         });
@@ -0,0 +1,316 @@
+package org.e2immu.analyzer.shallow.analyzer;
+
+import org.e2immu.analyzer.modification.prepwork.PrepWorkCodec;
+import org.e2immu.language.cst.api.analysis.Codec;
+import org.e2immu.language.cst.io.CodecImpl;
+import org.e2immu.language.inspection.api.integration.JavaInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/*
+Cache of the analyzed package files of an AnnotatedAPIConfiguration, in a directory shared by all processes of a user.
+
+The snapshot is a single binary package file (see BinaryPackageFile) containing all primary types of all
+configured package files, with one shared string table. It is restored in a single pass over one file, without
+opening the jars or directories of the configuration. The property values are still JSON, and are parsed by
+the codec; because all packages share the string table, each distinct value is parsed only once per restore.
+
+The name of the snapshot file is a SHA-256 hash of
+- the snapshot format version and the versions of the codec implementations,
+- the short name of the current JRE,
+- the identity of each configured jar or directory: its path, size and modification time, and for a directory,
+  those of each of its package files. The content is only hashed when a jar cannot be located on the file system.
+When any of these changes, a new snapshot is written. Only the most recently written snapshots are kept.
+
+The snapshot file starts with a header (magic, version, length and CRC32 of the binary package file), so that
+a truncated or corrupt snapshot is detected without decoding it.
+ */
+public class SnapshotCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotCache.class);
+
+    public static final int SNAPSHOT_VERSION = 2;
+    public static final int DEFAULT_MAX_SNAPSHOTS = 4;
+    private static final String PREFIX = "aaapi-";
+    private static final int MAGIC = 0x41414153; // 'AAAS'
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8;
+
+    private final Path directory;
+    private final int maxSnapshots;
+
+    public SnapshotCache() {
+        this(defaultDirectory());
+    }
+
+    public SnapshotCache(Path directory) {
+        this(directory, DEFAULT_MAX_SNAPSHOTS);
+    }
+
+    public SnapshotCache(Path directory, int maxSnapshots) {
+        assert maxSnapshots > 0;
+        this.directory = directory;
+        this.maxSnapshots = maxSnapshots;
+    }
+
+    /*
+    $XDG_CACHE_HOME/e2immu when set, ~/.cache/e2immu otherwise
+     */
+    public static Path defaultDirectory() {
+        String xdgCacheHome = System.getenv("XDG_CACHE_HOME");
+        Path base = xdgCacheHome != null && !xdgCacheHome.isBlank() ? Path.of(xdgCacheHome)
+                : Path.of(System.getProperty("user.home"), ".cache");
+        return base.resolve("e2immu");
+    }
+
+    public int go(JavaInspector javaInspector, AnnotatedAPIConfiguration annotatedAPIConfiguration) throws IOException {
+        Codec codec = new PrepWorkCodec(javaInspector.runtime()).codec();
+        return go(new LoadAnalyzedPackageFiles(), codec, annotatedAPIConfiguration);
+    }
+
+    /*
+    Loads the analyzed package files via the snapshot; writes the snapshot first, when it does not exist yet.
+     */
+    public int go(LoadAnalyzedPackageFiles loader, Codec codec, AnnotatedAPIConfiguration annotatedAPIConfiguration)
+            throws IOException {
+        Path snapshot = snapshotFile(annotatedAPIConfiguration.analyzedAnnotatedApiDirs());
+        ByteBuffer content = read(snapshot);
+        if (content != null) {
+            LOGGER.info("Restoring analyzed package files from snapshot {}", snapshot);
+            return loader.go(codec, snapshot.toString(), content);
+        }
+        AnalyzedPackageIndex index = loader.index(codec, annotatedAPIConfiguration);
+        byte[] bytes;
+        try {
+            bytes = write(index.allPackageFiles(), snapshot);
+        } catch (IOException ioe) {
+            LOGGER.warn("Cannot write snapshot {}, loading without cache: {}", snapshot, ioe.getMessage());
+            return index.loadAll();
+        }
+        evict(snapshot);
+        return loader.go(codec, snapshot.toString(), ByteBuffer.wrap(bytes));
+    }
+
+    Path snapshotFile(List<String> analyzedAnnotatedApiDirs) throws IOException {
+        MessageDigest digest = sha256();
+        update(digest, "snapshot " + SNAPSHOT_VERSION);
+        update(digest, "codec " + version(CodecImpl.class) + " " + version(PrepWorkCodec.class));
+        update(digest, "jre " + jreShortName());
+        for (String dir : analyzedAnnotatedApiDirs) {
+            update(digest, dir);
+            if (dir.startsWith(ToolChain.RESOURCE_PROTOCOL)) {
+                URL jarUrl = getClass().getResource(dir.substring(ToolChain.RESOURCE_PROTOCOL.length()));
+                if (jarUrl == null) {
+                    update(digest, "missing");
+                } else {
+                    updateIdentity(digest, jarUrl);
+                }
+            } else if (dir.endsWith(".jar")) {
+                updateIdentity(digest, Path.of(dir));
+            } else {
+                Path path = Path.of(dir);
+                if (Files.isDirectory(path)) {
+                    List<Path> files;
+                    try (Stream<Path> stream = Files.walk(path, 3)) {
+                        files = stream.filter(Files::isRegularFile).sorted().toList();
+                    }
+                    for (Path file : files) updateIdentity(digest, file);
+                } else {
+                    update(digest, "missing");
+                }
+            }
+        }
+        String key = HexFormat.of().formatHex(digest.digest());
+        return directory.resolve(PREFIX + key + BinaryPackageFile.EXTENSION);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new UnsupportedOperationException(e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String s) {
+        digest.update(s.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static void updateIdentity(MessageDigest digest, Path path) throws IOException {
+        if (Files.isRegularFile(path)) {
+            update(digest, path.toAbsolutePath() + " " + Files.size(path) + " "
+                           + Files.getLastModifiedTime(path).toMillis());
+        } else {
+            update(digest, path.toAbsolutePath() + " missing");
+        }
+    }
+
+    /*
+    A jar on the file system, or a jar inside another jar (e.g. the resources of this module in a distribution),
+    is identified by the file on the file system. Otherwise, we have no choice but to hash the content.
+     */
+    private static void updateIdentity(MessageDigest digest, URL jarUrl) throws IOException {
+        try {
+            if ("file".equals(jarUrl.getProtocol())) {
+                updateIdentity(digest, Path.of(jarUrl.toURI()));
+                return;
+            }
+            if (jarUrl.openConnection() instanceof JarURLConnection jarURLConnection
+                && "file".equals(jarURLConnection.getJarFileURL().getProtocol())) {
+                updateIdentity(digest, Path.of(jarURLConnection.getJarFileURL().toURI()));
+                return;
+            }
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            LOGGER.debug("Cannot locate {} on the file system: {}", jarUrl, e.getMessage());
+        }
+        try (InputStream inputStream = jarUrl.openStream()) {
+            digest.update(inputStream.readAllBytes());
+        }
+    }
+
+    static String jreShortName() {
+        return ToolChain.currentJre().shortName();
+    }
+
+    /*
+    The implementation version from the jar manifest; in a development setup, where there is none,
+    the location and modification time of the class file.
+     */
+    static String version(Class<?> clazz) {
+        String implementationVersion = clazz.getPackage().getImplementationVersion();
+        if (implementationVersion != null) return implementationVersion;
+        URL location = clazz.getProtectionDomain().getCodeSource() == null ? null
+                : clazz.getProtectionDomain().getCodeSource().getLocation();
+        if (location == null) return "?";
+        if ("file".equals(location.getProtocol())) {
+            URL classFile = clazz.getResource(clazz.getSimpleName() + ".class");
+            File file = classFile != null && "file".equals(classFile.getProtocol()) ? new File(classFile.getPath())
+                    : new File(location.getPath());
+            return location + " " + file.lastModified();
+        }
+        return location.toString();
+    }
+
+    /*
+    Returns the binary package file inside the snapshot, or null when there is no snapshot, or when its header
+    does not match its content.
+     */
+    private static ByteBuffer read(Path snapshot) {
+        if (!Files.isReadable(snapshot)) return null;
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(snapshot));
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.getInt() != SNAPSHOT_VERSION) {
+                throw new IOException("unknown header");
+            }
+            long length = buffer.getLong();
+            long crc = buffer.getLong();
+            if (length != buffer.remaining()) {
+                throw new IOException("expected " + length + " bytes, found " + buffer.remaining());
+            }
+            if (crc != crc32(buffer.duplicate())) throw new IOException("checksum mismatch");
+            return buffer.slice();
+        } catch (IOException ioe) {
+            LOGGER.warn("Ignoring invalid snapshot {}: {}", snapshot, ioe.getMessage());
+            return null;
+        }
+    }
+
+    private static long crc32(ByteBuffer buffer) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(buffer);
+        return crc32.getValue();
+    }
+
+    /*
+    Returns the binary package file that has been written, without the header.
+     */
+    private byte[] write(List<AnalyzedPackageIndex.PackageFile> packageFiles, Path snapshot) throws IOException {
+        BinaryPackageFile.Collector collector = new BinaryPackageFile.Collector();
+        for (AnalyzedPackageIndex.PackageFile packageFile : packageFiles) {
+            LoadAnalyzedPackageFiles.decode(packageFile.name(), content(packageFile), collector);
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        collector.write(baos);
+        byte[] bytes = baos.toByteArray();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                .putInt(MAGIC)
+                .putInt(SNAPSHOT_VERSION)
+                .putLong(bytes.length)
+                .putLong(crc32(ByteBuffer.wrap(bytes)));
+
+        Files.createDirectories(directory);
+        // write to a temporary file first, so that concurrent processes never see a partial snapshot
+        Path tmp = Files.createTempFile(directory, PREFIX, ".tmp");
+        try {
+            try (OutputStream os = Files.newOutputStream(tmp)) {
+                os.write(header.array());
+                os.write(bytes);
+            }
+            try {
+                Files.move(tmp, snapshot, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        LOGGER.info("Wrote snapshot of {} primary types to {}", collector.countPrimaryTypes(), snapshot);
+        return bytes;
+    }
+
+    private static ByteBuffer content(AnalyzedPackageIndex.PackageFile packageFile) throws IOException {
+        if (packageFile.content() != null) return packageFile.content().duplicate();
+        return ByteBuffer.wrap(Files.readAllBytes(packageFile.path()));
+    }
+
+    /*
+    Keeps the most recently written snapshots, including the one that has just been written.
+    Other processes may still be reading an evicted snapshot; on Windows, deleting it may then fail.
+     */
+    private void evict(Path keep) {
+        List<Path> snapshots;
+        try (Stream<Path> stream = Files.list(directory)) {
+            snapshots = stream.filter(p -> !p.equals(keep) && isSnapshot(p))
+                    .sorted(Comparator.comparing(SnapshotCache::lastModified).reversed())
+                    .toList();
+        } catch (IOException ioe) {
+            LOGGER.warn("Cannot list snapshots in {}: {}", directory, ioe.getMessage());
+            return;
+        }
+        for (Path old : snapshots.subList(Math.min(maxSnapshots - 1, snapshots.size()), snapshots.size())) {
+            try {
+                Files.deleteIfExists(old);
+                LOGGER.info("Evicted snapshot {}", old);
+            } catch (IOException ioe) {
+                LOGGER.warn("Cannot evict snapshot {}: {}", old, ioe.getMessage());
+            }
+        }
+    }
+
+    private static boolean isSnapshot(Path path) {
+        String fileName = path.getFileName().toString();
+        return fileName.startsWith(PREFIX) && fileName.endsWith(BinaryPackageFile.EXTENSION);
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException ioe) {
+            return 0L;
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package org.e2immu.analyzer.shallow.analyzer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+
+/*
+Event-based reader for analyzed package files, as written by WriteAnalysis.
+
+The general structure is
+
+[
+{"name": "Tpackage.Type", "data":{"key":value,...}, "subs":[
+ {"name": "Mmethod(0)", "data":{...}, "sub":
+  {"name": "Pp(0)", "data":{...}}},
+ ...]},
+...
+]
+
+Rather than building a parse tree of the whole document, the decoder reads the characters once, and sends
+the name of each Info object, each of its properties, and the start and end of its sub-objects to a Handler.
+Property values are passed on as raw JSON text; they are small, and can be parsed on demand.
+ */
+public class StreamingJsonDecoder {
+
+    public interface Handler {
+        default void startPrimaryType() {
+        }
+
+        void startInfo(char type, String name);
+
+        void property(String key, String value);
+
+        void endData();
+
+        /*
+        called before the sub-objects of the current Info object; list is true for "subs", false for "sub"
+         */
+        default void startSubs(boolean list) {
+        }
+
+        void endInfo();
+
+        default void endPrimaryType() {
+        }
+    }
+
+    /*
+    A single character source. Reading from a Reader goes through a buffer, so that we can avoid the synchronized
+    single-character read() method.
+     */
+    interface Source {
+        int read() throws IOException;
+    }
+
+    private static class ReaderSource implements Source {
+        private final Reader reader;
+        private final char[] buffer = new char[8192];
+        private int pos;
+        private int limit;
+
+        ReaderSource(Reader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (pos == limit) {
+                limit = reader.read(buffer, 0, buffer.length);
+                pos = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[pos++];
+        }
+    }
+
+    /*
+    Decodes UTF-8 directly from a buffer, e.g. a memory-mapped file, without intermediate copies of the content.
+    Code points outside the basic multilingual plane are returned as two surrogate characters, like a Reader does.
+     */
+    private static class ByteBufferSource implements Source {
+        private final ByteBuffer buffer;
+        private int pendingLowSurrogate = -1;
+
+        ByteBufferSource(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (pendingLowSurrogate >= 0) {
+                int c = pendingLowSurrogate;
+                pendingLowSurrogate = -1;
+                return c;
+            }
+            if (!buffer.hasRemaining()) return -1;
+            int b = buffer.get() & 0xFF;
+            if (b < 0x80) return b;
+            if (b < 0xC0) throw malformed();
+            if (b < 0xE0) return (b & 0x1F) << 6 | continuation();
+            if (b < 0xF0) return (b & 0x0F) << 12 | continuation() << 6 | continuation();
+            if (b >= 0xF8) throw malformed();
+            int codePoint = (b & 0x07) << 18 | continuation() << 12 | continuation() << 6 | continuation();
+            pendingLowSurrogate = Character.lowSurrogate(codePoint);
+            return Character.highSurrogate(codePoint);
+        }
+
+        private int continuation() throws IOException {
+            if (!buffer.hasRemaining()) throw malformed();
+            int b = buffer.get() & 0xFF;
+            if ((b & 0xC0) != 0x80) throw malformed();
+            return b & 0x3F;
+        }
+
+        private IOException malformed() {
+            return new IOException("Malformed UTF-8 in analyzed package file at byte " + buffer.position());
+        }
+    }
+
+    private final Source source;
+    private final Handler handler;
+    private final StringBuilder sb = new StringBuilder();
+    private int pushedBack = -2;
+
+    public StreamingJsonDecoder(Reader reader, Handler handler) {
+        this(new ReaderSource(reader), handler);
+    }
+
+    /*
+    buffer: UTF-8 encoded content, read from its position to its limit
+     */
+    public StreamingJsonDecoder(ByteBuffer buffer, Handler handler) {
+        this(new ByteBufferSource(buffer), handler);
+    }
+
+    StreamingJsonDecoder(Source source, Handler handler) {
+        this.source = source;
+        this.handler = handler;
+    }
+
+    /*
+    returns the number of primary types read
+     */
+    public int go() throws IOException {
+        expect('[');
+        int countPrimaryTypes = 0;
+        int c = nextNonWhitespace();
+        if (c != ']') {
+            pushBack(c);
+            while (true) {
+                handler.startPrimaryType();
+                info();
+                handler.endPrimaryType();
+                ++countPrimaryTypes;
+                c = nextNonWhitespace();
+                if (c == ']') break;
+                if (c != ',') throw syntaxError(c, "',' or ']'");
+            }
+        }
+        c = nextNonWhitespace();
+        if (c != -1) throw syntaxError(c, "end of input");
+        return countPrimaryTypes;
+    }
+
+    private void info() throws IOException {
+        expect('{');
+        int c = nextNonWhitespace();
+        if (c == '}') throw syntaxError(c, "\"name\"");
+        boolean haveName = false;
+        while (true) {
+            pushBack(c);
+            String key = string();
+            expect(':');
+            switch (key) {
+                case "name" -> {
+                    String fullyQualifiedWithType = string();
+                    handler.startInfo(fullyQualifiedWithType.charAt(0), fullyQualifiedWithType.substring(1));
+                    haveName = true;
+                }
+                case "data" -> {
+                    if (!haveName) throw new IOException("Expected \"name\" before \"data\"");
+                    data();
+                }
+                case "sub" -> {
+                    if (!haveName) throw new IOException("Expected \"name\" before \"sub\"");
+                    handler.startSubs(false);
+                    info();
+                }
+                case "subs" -> {
+                    if (!haveName) throw new IOException("Expected \"name\" before \"subs\"");
+                    handler.startSubs(true);
+                    subs();
+                }
+                default -> skipValue();
+            }
+            c = nextNonWhitespace();
+            if (c == '}') break;
+            if (c != ',') throw syntaxError(c, "',' or '}'");
+            c = nextNonWhitespace();
+        }
+        if (!haveName) throw new IOException("Missing \"name\"");
+        handler.endInfo();
+    }
+
+    private void data() throws IOException {
+        expect('{');
+        int c = nextNonWhitespace();
+        if (c != '}') {
+            while (true) {
+                pushBack(c);
+                String key = string();
+                expect(':');
+                handler.property(key, rawValue());
+                c = nextNonWhitespace();
+                if (c == '}') break;
+                if (c != ',') throw syntaxError(c, "',' or '}'");
+                c = nextNonWhitespace();
+            }
+        }
+        handler.endData();
+    }
+
+    private void subs() throws IOException {
+        expect('[');
+        int c = nextNonWhitespace();
+        if (c == ']') return;
+        pushBack(c);
+        while (true) {
+            info();
+            c = nextNonWhitespace();
+            if (c == ']') return;
+            if (c != ',') throw syntaxError(c, "',' or ']'");
+        }
+    }
+
+    /*
+    Reads a quoted string, and returns its unescaped content.
+     */
+    private String string() throws IOException {
+        expect('"');
+        sb.setLength(0);
+        while (true) {
+            int c = next();
+            if (c == '"') return sb.toString();
+            if (c == -1) throw syntaxError(c, "'\"'");
+            if (c == '\\') {
+                int e = next();
+                switch (e) {
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'n' -> sb.append('\n');
+                    case 'r' -> sb.append('\r');
+                    case 't' -> sb.append('\t');
+                    case 'u' -> {
+                        int code = 0;
+                        for (int i = 0; i < 4; i++) {
+                            int h = next();
+                            int digit = h == -1 ? -1 : Character.digit(h, 16);
+                            if (digit < 0) throw syntaxError(h, "hexadecimal digit");
+                            code = (code << 4) + digit;
+                        }
+                        sb.append((char) code);
+                    }
+                    case -1 -> throw syntaxError(e, "escaped character");
+                    default -> sb.append((char) e);
+                }
+            } else {
+                sb.append((char) c);
+            }
+        }
+    }
+
+    /*
+    Copies the JSON text of a single value, verbatim.
+     */
+    private String rawValue() throws IOException {
+        StringBuilder value = new StringBuilder();
+        int c = nextNonWhitespace();
+        if (c == '"') {
+            value.append('"');
+            copyStringTail(value);
+            return value.toString();
+        }
+        if (c == '{' || c == '[') {
+            int depth = 0;
+            while (true) {
+                if (c == -1) throw syntaxError(c, "'}' or ']'");
+                value.append((char) c);
+                if (c == '"') {
+                    copyStringTail(value);
+                } else if (c == '{' || c == '[') {
+                    ++depth;
+                } else if ((c == '}' || c == ']') && --depth == 0) {
+                    return value.toString();
+                }
+                c = next();
+            }
+        }
+        // number, true, false, null
+        while (c != -1 && c != ',' && c != '}' && c != ']' && !isWhitespace(c)) {
+            value.append((char) c);
+            c = next();
+        }
+        if (value.isEmpty()) throw syntaxError(c, "value");
+        pushBack(c);
+        return value.toString();
+    }
+
+    private void copyStringTail(StringBuilder value) throws IOException {
+        while (true) {
+            int c = next();
+            if (c == -1) throw syntaxError(c, "'\"'");
+            value.append((char) c);
+            if (c == '"') return;
+            if (c == '\\') {
+                int e = next();
+                if (e == -1) throw syntaxError(e, "escaped character");
+                value.append((char) e);
+            }
+        }
+    }
+
+    private void skipValue() throws IOException {
+        rawValue();
+    }
+
+    private void expect(char expected) throws IOException {
+        int c = nextNonWhitespace();
+        if (c != expected) throw syntaxError(c, "'" + expected + "'");
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        int c;
+        do {
+            c = next();
+        } while (isWhitespace(c));
+        return c;
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    private int next() throws IOException {
+        if (pushedBack != -2) {
+            int c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        return source.read();
+    }
+
+    private void pushBack(int c) {
+        assert pushedBack == -2;
+        pushedBack = c;
+    }
+
+    private static IOException syntaxError(int c, String expected) {
+        String have = c == -1 ? "end of input" : "'" + (char) c + "'";
+        return new IOException("Syntax error in analyzed package file: expected " + expected + ", got " + have);
+    }
+}
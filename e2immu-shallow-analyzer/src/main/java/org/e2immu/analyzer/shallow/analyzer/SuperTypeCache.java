@@ -0,0 +1,54 @@
+package org.e2immu.analyzer.shallow.analyzer;
+
+import org.e2immu.language.cst.api.info.TypeInfo;
+import org.e2immu.language.cst.api.type.ParameterizedType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+Per-run cache of the supertype closure of types, shared by ShallowAnalyzer, ShallowTypeAnalyzer and
+CommonAnalyzer, so that the hierarchy of a type is walked only once.
+
+superTypes() keeps the elements of recursiveSuperTypeStream() in their order, including duplicates:
+java.lang.Object is reached once per path, and the number of paths is the weight of the edge in the graph
+of ShallowAnalyzer.
+
+Thread-safe, because the analyzers can run in parallel.
+ */
+public class SuperTypeCache {
+    private final Map<TypeInfo, List<TypeInfo>> directSuperTypes = new ConcurrentHashMap<>();
+    private final Map<TypeInfo, List<TypeInfo>> superTypes = new ConcurrentHashMap<>();
+    private final Map<TypeInfo, List<TypeInfo>> distinctSuperTypes = new ConcurrentHashMap<>();
+    private final Map<TypeInfo, List<TypeInfo>> distinctPublicSuperTypes = new ConcurrentHashMap<>();
+
+    // parent class and interfaces implemented
+    public List<TypeInfo> directSuperTypes(TypeInfo typeInfo) {
+        return directSuperTypes.computeIfAbsent(typeInfo, t -> {
+            List<TypeInfo> list = new ArrayList<>();
+            if (t.parentClass() != null && t.parentClass().typeInfo() != null) {
+                list.add(t.parentClass().typeInfo());
+            }
+            for (ParameterizedType interfaceImplemented : t.interfacesImplemented()) {
+                if (interfaceImplemented.typeInfo() != null) list.add(interfaceImplemented.typeInfo());
+            }
+            return List.copyOf(list);
+        });
+    }
+
+    // as recursiveSuperTypeStream(), with duplicates
+    public List<TypeInfo> superTypes(TypeInfo typeInfo) {
+        return superTypes.computeIfAbsent(typeInfo, t -> t.recursiveSuperTypeStream().toList());
+    }
+
+    public List<TypeInfo> distinctSuperTypes(TypeInfo typeInfo) {
+        return distinctSuperTypes.computeIfAbsent(typeInfo, t -> superTypes(t).stream().distinct().toList());
+    }
+
+    public List<TypeInfo> distinctPublicSuperTypes(TypeInfo typeInfo) {
+        return distinctPublicSuperTypes.computeIfAbsent(typeInfo, t -> distinctSuperTypes(t).stream()
+                .filter(TypeInfo::isPublic).toList());
+    }
+}
@@ -17,8 +17,29 @@ public class ToolChain {
     public record JRE(int mainVersion, String platformVersion, String vendor, String path, String shortName) {
     }
 
-    public static final List<JRE> JRES = DetectJREs.runSystemCommand();
-    public static final Map<String, String> jreShortNameToAnalyzedPackageFiles = DetectJREs.loadJreMapping(JRES);
+    /*
+    Detecting the installed JREs spawns /usr/libexec/java_home on macOS, and reads ~/.e2immu.jdks on Linux;
+    the mapping is read from ~/.e2immu.jremap. Both happen on first use only, and are remembered.
+    Callers that only need the constants, or the current JRE, never trigger them.
+    These accessors replace the public static fields JRES and jreShortNameToAnalyzedPackageFiles, which were
+    computed when the class was loaded.
+     */
+    private static List<JRE> jres;
+    private static Map<String, String> jreShortNameToAnalyzedPackageFiles;
+
+    public static synchronized List<JRE> jres() {
+        if (jres == null) {
+            jres = DetectJREs.runSystemCommand();
+        }
+        return jres;
+    }
+
+    public static synchronized Map<String, String> jreShortNameToAnalyzedPackageFiles() {
+        if (jreShortNameToAnalyzedPackageFiles == null) {
+            jreShortNameToAnalyzedPackageFiles = DetectJREs.loadJreMapping();
+        }
+        return jreShortNameToAnalyzedPackageFiles;
+    }
 
     public static final String[] CLASSPATH_JUNIT = {
             JAR_WITH_PATH_PREFIX + "org/junit/jupiter/api",
@@ -50,14 +71,22 @@ public class ToolChain {
             JAR_WITH_PATH_PREFIX + "org/e2immu/analyzer/modification/prepwork",
             JAR_WITH_PATH_PREFIX + "org/e2immu/analyzer/shallow/analyzer"};
 
+    /*
+    When this module bundles analyzed package files for exactly the current JRE, they are used without looking at
+    ~/.e2immu.jremap; the mapping is only read for JREs without a bundled jar of their own.
+     */
     public static String currentJdkAnalyzedPackages() {
         String currentJreShortName = currentJre().shortName();
+        String bundled = jdkAnalyzedPackages(currentJreShortName);
+        if (ToolChain.class.getResource(bundled.substring(RESOURCE_PROTOCOL.length())) != null) {
+            return bundled;
+        }
         String analyzedPackageFile = mapJreShortNameToAnalyzedPackageShortName(currentJreShortName);
         return jdkAnalyzedPackages(analyzedPackageFile);
     }
 
     public static String mapJreShortNameToAnalyzedPackageShortName(String shortName) {
-        return jreShortNameToAnalyzedPackageFiles.getOrDefault(shortName, shortName);
+        return jreShortNameToAnalyzedPackageFiles().getOrDefault(shortName, shortName);
     }
 
     public static final String RESOURCE_PROTOCOL = "resource:";
@@ -73,15 +102,25 @@ public class ToolChain {
 
     // internal
 
+    /*
+    The JRE we're running in, from the system properties rather than from the detected JREs.
+    Its short name is the one DetectJREs computes for the same JRE. On Linux, both are computed from the path.
+    On macOS, DetectJREs uses the vendor and version reported by java_home, which normally agree with the java.vendor
+    and java.version system properties; TestToolChain verifies this against the output of java_home.
+     */
     public static JRE currentJre() {
         String home = System.getProperty("java.home");
-        return JRES.stream().filter(jre -> jre.path.equals(home))
-                .findFirst()
-                .orElseThrow(() -> new UnsupportedOperationException("Toolchain not found"));
+        JRE linux = DetectJREs.parseLinuxLine(home + "/bin/java");
+        if (linux != null) {
+            return new JRE(linux.mainVersion(), linux.platformVersion(), linux.vendor(), home, linux.shortName());
+        }
+        String version = System.getProperty("java.version");
+        String vendor = System.getProperty("java.vendor");
+        return new JRE(Runtime.version().feature(), version, vendor, home, DetectJREs.shortName(vendor, version));
     }
 
     public static int currentJdkMainVersion() {
-        return currentJre().mainVersion;
+        return Runtime.version().feature();
     }
 
     private static final Pattern MAC_OPENJDK_PATTERN = Pattern.compile("openjdk(@\\d+)?/([\\d.]+)/libexec/openjdk.jdk");
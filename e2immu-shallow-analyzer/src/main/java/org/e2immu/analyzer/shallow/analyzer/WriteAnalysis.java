@@ -10,17 +10,18 @@ import org.e2immu.util.internal.util.Trie;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.OutputStreamWriter;
+import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -28,9 +29,29 @@ public class WriteAnalysis {
     private static final Logger LOGGER = LoggerFactory.getLogger(WriteAnalysis.class);
 
     private final Runtime runtime;
+    private final boolean binary;
+    private final ExecutorService executor;
 
     public WriteAnalysis(Runtime runtime) {
+        this(runtime, false);
+    }
+
+    /*
+    binary: write the compact .aaapi format of BinaryPackageFile rather than .json
+     */
+    public WriteAnalysis(Runtime runtime, boolean binary) {
+        this(runtime, binary, null);
+    }
+
+    /*
+    executor: when not null, packages are encoded and written in parallel. Each package has its own output file,
+    and the content of each file is the same as in sequential mode. The caller remains responsible for
+    shutting the executor down.
+     */
+    public WriteAnalysis(Runtime runtime, boolean binary, ExecutorService executor) {
         this.runtime = runtime;
+        this.binary = binary;
+        this.executor = executor;
     }
 
     public void write(String destinationDirectory, Trie<TypeInfo> typeTrie) throws IOException {
@@ -42,8 +63,9 @@ public class WriteAnalysis {
         if (directory.mkdirs()) {
             LOGGER.info("Created directory {}", directory.getAbsolutePath());
         }
-        Codec codec = new CodecImpl(runtime, PropertyProviderImpl::get, null, null); // we don't have to decode
-        write(directory, typeTrie, codec, subDirectory);
+        // we don't have to decode; one codec per package, so that we can write packages in parallel
+        write(directory, typeTrie, () -> new CodecImpl(runtime, PropertyProviderImpl::get, null, null), subDirectory,
+                executor);
     }
 
     public void write(File directory, Trie<TypeInfo> typeTrie, Codec codec) throws IOException {
@@ -51,44 +73,106 @@ public class WriteAnalysis {
     }
 
     // NOTE: if packages are split across different source sets (jars) then all types of one package will end up in one of the source sets
+    // NOTE: a codec is not thread-safe, so this method always writes sequentially; see the Supplier<Codec> variant
     public void write(File destinationDirectory, Trie<TypeInfo> typeTrie, Codec codec, Function<SourceSet, String> subDirectory) throws IOException {
-        try {
-            typeTrie.visitThrowing(new String[]{}, (parts, list) -> {
-                if (!list.isEmpty()) {
-                    String dir = subDirectory.apply(list.getFirst().compilationUnit().sourceSet());
-                    write(destinationDirectory, codec, parts, list, dir);
-                }
-            });
-        } catch (RuntimeException re) {
-            if (re.getCause() instanceof IOException ioe) {
-                throw ioe;
+        write(destinationDirectory, typeTrie, () -> codec, subDirectory, null);
+    }
+
+    /*
+    In parallel mode, the codec supplier is called once per package, from the thread that writes the package;
+    it must return a new codec every time.
+     */
+    public void write(File destinationDirectory,
+                      Trie<TypeInfo> typeTrie,
+                      Supplier<Codec> codecSupplier,
+                      Function<SourceSet, String> subDirectory) throws IOException {
+        write(destinationDirectory, typeTrie, codecSupplier, subDirectory, executor);
+    }
+
+    private record PackageToWrite(File outputFile, List<TypeInfo> types) {
+    }
+
+    private void write(File destinationDirectory,
+                       Trie<TypeInfo> typeTrie,
+                       Supplier<Codec> codecSupplier,
+                       Function<SourceSet, String> subDirectory,
+                       ExecutorService executor) throws IOException {
+        String extension = binary ? BinaryPackageFile.EXTENSION : BinaryPackageFile.JSON_EXTENSION;
+        List<PackageToWrite> packages = new ArrayList<>();
+        typeTrie.visitThrowing(new String[]{}, (parts, list) -> {
+            if (!list.isEmpty()) {
+                String dir = subDirectory.apply(list.getFirst().compilationUnit().sourceSet());
+                File subDir = dir.isBlank() ? destinationDirectory : new File(destinationDirectory, dir);
+                String compressedPackages = Arrays.stream(parts).map(WriteAnalysis::capitalize)
+                        .collect(Collectors.joining());
+                packages.add(new PackageToWrite(new File(subDir, compressedPackages + extension), list));
+            }
+        });
+        // create the directories up front, rather than concurrently
+        for (File subDir : packages.stream().map(p -> p.outputFile.getParentFile()).distinct().toList()) {
+            if (subDir.mkdirs()) {
+                LOGGER.info("Created {}", subDir);
+            }
+        }
+        if (executor == null) {
+            Codec codec = codecSupplier.get();
+            for (PackageToWrite p : packages) {
+                write(codec, p);
+            }
+            return;
+        }
+        List<Future<?>> futures = packages.stream()
+                .<Future<?>>map(p -> executor.submit(() -> {
+                    write(codecSupplier.get(), p);
+                    return null;
+                }))
+                .toList();
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                throw new InterruptedIOException("Interrupted while writing analyzed package files");
+            } catch (ExecutionException e) {
+                futures.forEach(f -> f.cancel(true));
+                if (e.getCause() instanceof IOException ioe) throw ioe;
+                if (e.getCause() instanceof RuntimeException re) throw re;
+                throw new IOException(e.getCause());
             }
-            throw re;
         }
     }
 
     /*
-     Write one .json file, containing a single package's worth of types' analyzed data.
+     Write one .json or .aaapi file, containing a single package's worth of types' analyzed data.
+     The content is encoded in memory first, and then written in one go.
      */
-    private void write(File directory, Codec codec, String[] packageParts, List<TypeInfo> list, String subDirectory) throws IOException {
-        File subDir = subDirectory.isBlank() ? directory : new File(directory, subDirectory);
-        if (subDir.mkdirs()) {
-            LOGGER.info("Created {}", subDir);
+    private void write(Codec codec, PackageToWrite packageToWrite) throws IOException {
+        File outputFile = packageToWrite.outputFile;
+        LOGGER.info("Writing {} type(s) to {}", packageToWrite.types.size(), outputFile.getAbsolutePath());
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        try (OutputStreamWriter osw = new OutputStreamWriter(json, StandardCharsets.UTF_8)) {
+            writeJson(osw, codec, packageToWrite.types);
         }
-        String compressedPackages = Arrays.stream(packageParts).map(WriteAnalysis::capitalize)
-                .collect(Collectors.joining());
-        File outputFile = new File(subDir, compressedPackages + ".json");
-        LOGGER.info("Writing {} type(s) to {}", list.size(), outputFile.getAbsolutePath());
-        try (OutputStreamWriter osw = new OutputStreamWriter(new FileOutputStream(outputFile), StandardCharsets.UTF_8)) {
-            osw.write("[");
-            AtomicBoolean first = new AtomicBoolean(true);
-            for (TypeInfo typeInfo : list) {
-                writePrimary(osw, codec, first, typeInfo);
+        try (OutputStream os = new BufferedOutputStream(new FileOutputStream(outputFile))) {
+            if (binary) {
+                Reader reader = new InputStreamReader(new ByteArrayInputStream(json.toByteArray()), StandardCharsets.UTF_8);
+                BinaryPackageFile.jsonToBinary(reader, os);
+            } else {
+                json.writeTo(os);
             }
-            osw.write("\n]\n");
         }
     }
 
+    private static void writeJson(OutputStreamWriter osw, Codec codec, List<TypeInfo> list) throws IOException {
+        osw.write("[");
+        AtomicBoolean first = new AtomicBoolean(true);
+        for (TypeInfo typeInfo : list) {
+            writePrimary(osw, codec, first, typeInfo);
+        }
+        osw.write("\n]\n");
+    }
+
     private static Codec.EncodedValue write(Codec codec, Codec.Context context, Info fieldInfo, int index) {
         Stream<Codec.EncodedPropertyValue> stream = fieldInfo.analysis().propertyValueStream()
                 .map(pv -> codec.encode(context, pv.property(), pv.value()))
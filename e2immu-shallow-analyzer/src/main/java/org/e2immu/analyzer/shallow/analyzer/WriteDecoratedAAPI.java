@@ -9,50 +9,50 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutorService;
 
 public class WriteDecoratedAAPI {
     private static final Logger LOGGER = LoggerFactory.getLogger(WriteDecoratedAAPI.class);
     private final JavaInspector javaInspector;
+    private final ExecutorService executor;
 
     public WriteDecoratedAAPI(JavaInspector javaInspector) {
+        this(javaInspector, null);
+    }
+
+    /*
+    executor: when not null, the composed package types are printed and written in parallel. Each package has its
+    own output file, and the content of each file is the same as in sequential mode. The caller remains responsible
+    for shutting the executor down.
+     */
+    public WriteDecoratedAAPI(JavaInspector javaInspector, ExecutorService executor) {
         this.javaInspector = javaInspector;
+        this.executor = executor;
     }
 
+    /*
+    All packages in the trie are composed in one pass of a single Composer, which shares its import computer and
+    its map from the composed to the real infos among them. Each output file gets its own decorator, because
+    DecoratorImpl collects the imports of the file it decorates; the decorators share one factory.
+     */
     public void write(String destinationDirectory, Trie<TypeInfo> typeTrie) throws IOException {
         File directory = new File(destinationDirectory);
         if (directory.mkdirs()) {
             LOGGER.info("Created directory {}", directory.getAbsolutePath());
         }
-        try {
-            typeTrie.visitThrowing(new String[]{}, (parts, list) -> write(directory, parts, list));
-        } catch (RuntimeException re) {
-            if (re.getCause() instanceof IOException ioe) {
-                throw ioe;
-            }
-            throw re;
-        }
-    }
-
-    private void write(File directory, String[] packageParts, List<TypeInfo> list) throws IOException {
-        if (list.isEmpty()) return;
-        String compressedPackages = Arrays.stream(packageParts).map(WriteDecoratedAAPI::capitalize)
-                .collect(Collectors.joining());
-        File outputFile = new File(directory, compressedPackages + ".json");
-        LOGGER.info("Writing {} type(s) to {}", list.size(), outputFile.getAbsolutePath());
+        List<TypeInfo> primaryTypes = new ArrayList<>();
+        typeTrie.visitThrowing(new String[]{}, (parts, list) -> primaryTypes.addAll(list));
         Composer composer = new Composer(javaInspector, set -> "org.e2immu", w -> true);
-        Collection<TypeInfo> apiTypes = composer.compose(list);
-
+        List<TypeInfo> apiTypes = composer.compose(primaryTypes).stream()
+                .sorted(Comparator.comparing(TypeInfo::fullyQualifiedName))
+                .toList();
         Map<Info, Info> dollarMap = composer.translateFromDollarToReal();
-        composer.write(apiTypes, directory, new DecoratorImpl(javaInspector.runtime(), dollarMap));
-
-    }
-
-    private static String capitalize(String s) {
-        return Character.toUpperCase(s.charAt(0)) + s.substring(1);
+        LOGGER.info("Composed {} package type(s) from {} type(s)", apiTypes.size(), primaryTypes.size());
+        DecoratorImpl.Factory decorators = new DecoratorImpl.Factory(javaInspector.runtime());
+        composer.write(apiTypes, directory, () -> decorators.newDecorator(dollarMap), executor);
     }
 }
@@ -57,5 +57,12 @@ public class TestAnnotatedApiParser {
         List<AnnotationExpression> charInfoAnnots = annotatedApiParser.annotations(charConstructor);
         assertEquals(1, charInfoAnnots.size());
         assertEquals("Independent", charInfoAnnots.get(0).typeInfo().simpleName());
+
+        assertTrue(annotatedApiParser.types().contains(string));
+        assertTrue(annotatedApiParser.methods().contains(charConstructor));
+        assertEquals(annotatedApiParser.infos().size(), annotatedApiParser.types().size()
+                                                        + annotatedApiParser.methods().size()
+                                                        + annotatedApiParser.fields().size()
+                                                        + annotatedApiParser.parameters().size());
     }
 }
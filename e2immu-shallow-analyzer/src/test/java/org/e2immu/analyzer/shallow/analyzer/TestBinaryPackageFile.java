@@ -0,0 +1,106 @@
+package org.e2immu.analyzer.shallow.analyzer;
+
+import org.intellij.lang.annotations.Language;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestBinaryPackageFile {
+
+    @Language("json")
+    private static final String INPUT = """
+            [
+            {"name": "Torg.e2immu.C", "data":{"commutableMethods":["p1","p2,p3","p4"],"immutableType":3,"shallowAnalyzer":1}, "subs":[
+             {"name": "Mm1(0)", "data":{"hc":{"0":"PE:0","M":1}}, "sub":
+              {"name": "Pp(0)", "data":{"hcsParameter":{"0":[[-1]]}}}},
+             {"name": "Mm2(1)", "data":{}, "subs":[
+            ]}]},
+
+            {"name": "Torg.e2immu.D", "data":{"annotatedApi":1}}
+            ]
+            """;
+
+    static class Recorder extends TestStreamingJsonDecoder.Recorder {
+        @Override
+        public void startSubs(boolean list) {
+            sb.append(list ? "subs\n" : "sub\n");
+        }
+    }
+
+    private static byte[] toBinary(String json) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        BinaryPackageFile.jsonToBinary(new StringReader(json), bos);
+        return bos.toByteArray();
+    }
+
+    private static void assertRoundTrip(String json) throws IOException {
+        byte[] binary = toBinary(json);
+
+        Recorder fromJson = new Recorder();
+        int count = new StreamingJsonDecoder(new StringReader(json), fromJson).go();
+        Recorder fromBinary = new Recorder();
+        assertEquals(count, BinaryPackageFile.decode(ByteBuffer.wrap(binary), fromBinary));
+        assertEquals(fromJson.sb.toString(), fromBinary.sb.toString());
+
+        StringWriter sw = new StringWriter();
+        BinaryPackageFile.binaryToJson(ByteBuffer.wrap(binary), sw);
+        assertEquals(json, sw.toString());
+    }
+
+    @Test
+    public void test() throws IOException {
+        assertRoundTrip(INPUT);
+        assertRoundTrip("[\n]\n");
+    }
+
+    @Test
+    public void testAnalyzedPackageFiles() throws IOException {
+        Path dir = Path.of("../e2immu-shallow-aapi/src/main/resources/org/e2immu/analyzer/shallow/aapi/analyzedPackageFiles");
+        assertTrue(Files.isDirectory(dir));
+        List<Path> jsonFiles;
+        try (Stream<Path> stream = Files.walk(dir)) {
+            jsonFiles = stream.filter(p -> p.toString().endsWith(".json")).toList();
+        }
+        assertFalse(jsonFiles.isEmpty());
+        for (Path jsonFile : jsonFiles) {
+            String json = Files.readString(jsonFile);
+            assertRoundTrip(json);
+            assertTrue(toBinary(json).length < json.length(), "Binary file larger for " + jsonFile);
+        }
+    }
+
+    /*
+    The bundled JDK directory, converted to binary and back, gives the same bytes.
+     */
+    @Test
+    public void testConvertDirectory() throws IOException {
+        Path dir = Path.of("../e2immu-shallow-aapi/src/main/resources/org/e2immu/analyzer/shallow/aapi/analyzedPackageFiles/jdk/openjdk-21.0.7");
+        Path binaryDir = Files.createTempDirectory("binary");
+        Path jsonDir = Files.createTempDirectory("json");
+        int count = BinaryPackageFile.convertDirectory(dir, binaryDir, true);
+        assertTrue(count > 10, "Have " + count);
+        assertEquals(count, BinaryPackageFile.convertDirectory(binaryDir, jsonDir, false));
+        try (Stream<Path> stream = Files.walk(dir)) {
+            for (Path jsonFile : stream.filter(p -> p.toString().endsWith(".json")).toList()) {
+                Path roundTrip = jsonDir.resolve(dir.relativize(jsonFile));
+                assertArrayEquals(Files.readAllBytes(jsonFile), Files.readAllBytes(roundTrip), jsonFile.toString());
+            }
+        }
+    }
+
+    @Test
+    public void testCorrupt() throws IOException {
+        byte[] binary = toBinary(INPUT);
+        byte[] truncated = new byte[binary.length / 2];
+        System.arraycopy(binary, 0, truncated, 0, truncated.length);
+        assertThrows(IOException.class, () -> BinaryPackageFile.decode(ByteBuffer.wrap(truncated), new Recorder()));
+        assertThrows(IOException.class, () -> BinaryPackageFile.decode(ByteBuffer.wrap(INPUT.getBytes()), new Recorder()));
+    }
+}
@@ -25,6 +25,9 @@ import java.lang.invoke.TypeDescriptor;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -404,6 +407,106 @@ public class TestComposer {
     }
 
 
+    @DisplayName("parallel write, one decorator per file, shared factory")
+    @Test
+    public void testParallelWrite() throws IOException {
+        InputConfigurationImpl.Builder inputConfigurationBuilder = new InputConfigurationImpl.Builder()
+                .addSources("none")
+                .addClassPath(JavaInspectorImpl.E2IMMU_SUPPORT)
+                .addClassPath("jmod:java.base");
+
+        JavaInspector javaInspector = new JavaInspectorImpl();
+        javaInspector.initialize(inputConfigurationBuilder.build());
+
+        Set<String> packages = Set.of("java.util", "java.util.function", "java.io", "java.lang.invoke");
+        Composer composer = new Composer(javaInspector, set -> "org.e2immu.testannotatedapi", w -> true);
+        List<TypeInfo> primaryTypes = javaInspector.compiledTypesManager().typesLoaded().stream()
+                .filter(t -> t.isPrimaryType() && packages.contains(t.packageName()))
+                .toList();
+        Collection<TypeInfo> apiTypes = composer.compose(primaryTypes);
+        assertEquals(packages.size(), apiTypes.size());
+        Map<Info, Info> dollarMap = composer.translateFromDollarToReal();
+
+        File sequentialDir = Files.createTempDirectory("sequential").toFile();
+        assertEquals(4, composer.write(apiTypes, sequentialDir,
+                () -> new DecoratorImpl(javaInspector.runtime(), dollarMap), null));
+        File parallelDir = Files.createTempDirectory("parallel").toFile();
+        DecoratorImpl.Factory decorators = new DecoratorImpl.Factory(javaInspector.runtime());
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            assertEquals(4, composer.write(apiTypes, parallelDir, () -> decorators.newDecorator(dollarMap),
+                    executor));
+        }
+        for (String fileName : new String[]{"JavaUtil.java", "JavaUtilFunction.java", "JavaIo.java",
+                "JavaLangInvoke.java"}) {
+            Path sequential = sequentialDir.toPath().resolve("org/e2immu/testannotatedapi").resolve(fileName);
+            Path parallel = parallelDir.toPath().resolve("org/e2immu/testannotatedapi").resolve(fileName);
+            assertArrayEquals(Files.readAllBytes(sequential), Files.readAllBytes(parallel), fileName);
+        }
+    }
+
+    @DisplayName("streaming: compose, print and write one package at a time")
+    @Test
+    public void testComposeAndWrite() throws IOException {
+        InputConfigurationImpl.Builder inputConfigurationBuilder = new InputConfigurationImpl.Builder()
+                .addSources("none")
+                .addClassPath(JavaInspectorImpl.E2IMMU_SUPPORT)
+                .addClassPath("jmod:java.base");
+
+        JavaInspector javaInspector = new JavaInspectorImpl();
+        javaInspector.initialize(inputConfigurationBuilder.build());
+
+        Set<String> packages = Set.of("java.util", "java.util.function", "java.io", "java.lang.invoke");
+        List<TypeInfo> primaryTypes = javaInspector.compiledTypesManager().typesLoaded().stream()
+                .filter(t -> t.isPrimaryType() && packages.contains(t.packageName()))
+                .toList();
+        DecoratorImpl.Factory decorators = new DecoratorImpl.Factory(javaInspector.runtime());
+
+        Composer composer = new Composer(javaInspector, set -> "org.e2immu.testannotatedapi", w -> true);
+        Collection<TypeInfo> apiTypes = composer.compose(primaryTypes);
+        File expectedDir = Files.createTempDirectory("expected").toFile();
+        composer.write(apiTypes, expectedDir, () -> decorators.newDecorator(composer.translateFromDollarToReal()),
+                null);
+
+        File sequentialDir = Files.createTempDirectory("sequential").toFile();
+        Composer streaming = new Composer(javaInspector, set -> "org.e2immu.testannotatedapi", w -> true);
+        Map<Info, Info> reported = new HashMap<>();
+        assertEquals(4, streaming.composeAndWrite(primaryTypes, sequentialDir, decorators::newDecorator,
+                reported::put, null, 1));
+        assertEquals(composer.translateFromDollarToReal().size(), reported.size());
+        assertTrue(streaming.translateFromDollarToReal().isEmpty());
+
+        File parallelDir = Files.createTempDirectory("parallel").toFile();
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            assertEquals(4, streaming.composeAndWrite(primaryTypes, parallelDir, decorators::newDecorator,
+                    (dollar, real) -> {
+                    }, executor, 2));
+        }
+        for (String fileName : new String[]{"JavaUtil.java", "JavaUtilFunction.java", "JavaIo.java",
+                "JavaLangInvoke.java"}) {
+            byte[] expected = Files.readAllBytes(expectedDir.toPath().resolve("org/e2immu/testannotatedapi")
+                    .resolve(fileName));
+            assertArrayEquals(expected, Files.readAllBytes(sequentialDir.toPath()
+                    .resolve("org/e2immu/testannotatedapi").resolve(fileName)), fileName);
+            assertArrayEquals(expected, Files.readAllBytes(parallelDir.toPath()
+                    .resolve("org/e2immu/testannotatedapi").resolve(fileName)), fileName);
+        }
+
+        // failures while writing, and while composing, on the calling thread
+        File failingDir = Files.createTempDirectory("failing").toFile();
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            assertThrows(IllegalStateException.class, () -> streaming.composeAndWrite(primaryTypes, failingDir,
+                    translate -> {
+                        throw new IllegalStateException("no decorator");
+                    }, (dollar, real) -> {
+                    }, executor, 2));
+            AtomicInteger translations = new AtomicInteger();
+            assertThrows(IllegalStateException.class, () -> streaming.composeAndWrite(primaryTypes, failingDir,
+                    decorators::newDecorator, (dollar, real) -> {
+                        if (translations.incrementAndGet() > 1) throw new IllegalStateException("stop");
+                    }, executor, 2));
+        }
+    }
+
     static class DecoratorWithComments extends DecoratorImpl {
         private final Map<MethodInfo, Integer> methodCallFrequencies;
         private final org.e2immu.language.cst.api.runtime.Runtime runtime;
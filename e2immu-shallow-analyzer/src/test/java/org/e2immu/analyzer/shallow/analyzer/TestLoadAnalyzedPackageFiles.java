@@ -16,8 +16,14 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
 
 import static org.e2immu.analyzer.modification.prepwork.hcs.HiddenContentSelector.HCS_PARAMETER;
 import static org.e2immu.analyzer.modification.prepwork.hct.HiddenContentTypes.HIDDEN_CONTENT_TYPES;
@@ -45,9 +51,7 @@ public class TestLoadAnalyzedPackageFiles {
         ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger("org.e2immu.analyzer.modification")).setLevel(Level.DEBUG);
     }
 
-    @DisplayName("using files")
-    @Test
-    public void test1() throws IOException {
+    private static JavaInspectorImpl javaInspectorForFiles() throws IOException {
         List<String> classPath = List.of(
                 "jmod:java.base", "jmod:java.xml", "jmod:java.net.http",
                 "jmod:java.desktop", "jmod:java.datatransfer",
@@ -63,24 +67,65 @@ public class TestLoadAnalyzedPackageFiles {
         InputConfigurationImpl.Builder inputConfiguration = new InputConfigurationImpl.Builder();
         classPath.forEach(inputConfiguration::addClassPath);
         javaInspector.initialize(inputConfiguration.build());
+        return javaInspector;
+    }
 
-        LoadAnalyzedPackageFiles loadAnalyzedPackageFiles = new LoadAnalyzedPackageFiles();
+    private static File jdkDir() {
         String jdk = ToolChain.mapJreShortNameToAnalyzedPackageShortName(ToolChain.currentJre().shortName());
         File jdkDir = new File("../e2immu-shallow-aapi/src/main/resources/org/e2immu/analyzer/shallow/aapi/analyzedPackageFiles/jdk/" + jdk);
         LOGGER.info("JDK dir is {}", jdkDir);
         assertTrue(jdkDir.isDirectory());
-        int countJdk = loadAnalyzedPackageFiles.goDir(javaInspector, jdkDir);
-        assertTrue(countJdk > 1);
+        return jdkDir;
+    }
 
+    private static File libDir() {
         File libDir = new File("../e2immu-shallow-aapi/src/main/resources/org/e2immu/analyzer/shallow/aapi/analyzedPackageFiles/libs");
         LOGGER.info("Lib dir is {}", libDir);
         assertTrue(libDir.isDirectory());
-        int countLib = loadAnalyzedPackageFiles.goDir(javaInspector, libDir);
+        return libDir;
+    }
+
+    @DisplayName("using files")
+    @Test
+    public void test1() throws IOException {
+        JavaInspectorImpl javaInspector = javaInspectorForFiles();
+
+        LoadAnalyzedPackageFiles loadAnalyzedPackageFiles = new LoadAnalyzedPackageFiles();
+        int countJdk = loadAnalyzedPackageFiles.goDir(javaInspector, jdkDir());
+        assertTrue(countJdk > 1);
+
+        int countLib = loadAnalyzedPackageFiles.goDir(javaInspector, libDir());
         assertTrue(countLib > 0);
 
         doTests(javaInspector);
     }
 
+    @DisplayName("using files, in parallel")
+    @Test
+    public void test1Parallel() throws IOException {
+        int countJdk = new LoadAnalyzedPackageFiles().goDir(javaInspectorForFiles(), jdkDir());
+
+        JavaInspectorImpl javaInspector = javaInspectorForFiles();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            LoadAnalyzedPackageFiles loadAnalyzedPackageFiles = new LoadAnalyzedPackageFiles(executor);
+            assertEquals(countJdk, loadAnalyzedPackageFiles.goDir(javaInspector, jdkDir()));
+            assertTrue(loadAnalyzedPackageFiles.goDir(javaInspector, libDir()) > 0);
+        }
+        doTests(javaInspector);
+    }
+
+    @DisplayName("using files, memory-mapped")
+    @Test
+    public void test1MemoryMap() throws IOException {
+        int countJdk = new LoadAnalyzedPackageFiles().goDir(javaInspectorForFiles(), jdkDir());
+
+        JavaInspectorImpl javaInspector = javaInspectorForFiles();
+        LoadAnalyzedPackageFiles loadAnalyzedPackageFiles = new LoadAnalyzedPackageFiles(null, true);
+        assertEquals(countJdk, loadAnalyzedPackageFiles.goDir(javaInspector, jdkDir()));
+        assertTrue(loadAnalyzedPackageFiles.goDir(javaInspector, libDir()) > 0);
+        doTests(javaInspector);
+    }
+
     @DisplayName("using resource:")
     @Test
     public void test2() throws IOException {
@@ -102,6 +147,102 @@ public class TestLoadAnalyzedPackageFiles {
         doTests(javaInspector);
     }
 
+    @DisplayName("using resource:, lazily")
+    @Test
+    public void test2Lazy() throws IOException {
+        JavaInspectorImpl javaInspector = new JavaInspectorImpl();
+        InputConfigurationImpl.Builder inputConfiguration = new InputConfigurationImpl.Builder()
+                .addClassPath(InputConfigurationImpl.GRADLE_DEFAULT)
+                .addClassPath(ToolChain.CLASSPATH_SLF4J_LOGBACK)
+                .addClassPath(ToolChain.CLASSPATH_JUNIT)
+                .addClassPath(JavaInspectorImpl.E2IMMU_SUPPORT);
+        javaInspector.initialize(inputConfiguration.build());
+
+        AnnotatedAPIConfiguration annotatedAPIConfiguration = new AnnotatedAPIConfigurationImpl.Builder()
+                .addAnalyzedAnnotatedApiDirs(ToolChain.currentJdkAnalyzedPackages())
+                .addAnalyzedAnnotatedApiDirs(ToolChain.commonLibsAnalyzedPackages())
+                .build();
+        AnalyzedPackageIndex index = new LoadAnalyzedPackageFiles().index(javaInspector, annotatedAPIConfiguration);
+        assertTrue(index.packages().contains("JavaUtil"));
+        assertTrue(index.packages().contains("JavaxSwing"));
+        assertEquals(0, index.countPrimaryTypes());
+        // the jars contain both forms of each package file; only the binary one is indexed
+        assertTrue(index.allPackageFiles().stream().allMatch(pf -> BinaryPackageFile.isBinary(pf.name())));
+        assertEquals(index.packages().size(), index.allPackageFiles().size());
+
+        TypeInfo hashMap = index.getOrLoad(javaInspector, HashMap.class);
+        assertNotNull(hashMap);
+        assertTrue(index.isLoaded("java.util"));
+        assertTrue(index.isLoaded("java.lang")); // via Object, a supertype of HashMap
+        assertTrue(index.isLoaded("java.util.function")); // via BiFunction, a parameter type of HashMap.compute
+        assertFalse(index.isLoaded("javax.swing"));
+        assertEquals(0, index.ensureLoaded(hashMap));
+        doTests(javaInspector);
+    }
+
+    @DisplayName("using resource:, via a snapshot")
+    @Test
+    public void test2Snapshot() throws IOException {
+        AnnotatedAPIConfiguration annotatedAPIConfiguration = new AnnotatedAPIConfigurationImpl.Builder()
+                .addAnalyzedAnnotatedApiDirs(ToolChain.currentJdkAnalyzedPackages())
+                .addAnalyzedAnnotatedApiDirs(ToolChain.commonLibsAnalyzedPackages())
+                .build();
+        Path cacheDir = Files.createTempDirectory("snapshotCache");
+        SnapshotCache snapshotCache = new SnapshotCache(cacheDir);
+
+        JavaInspectorImpl javaInspector1 = javaInspectorForFiles();
+        int count1 = snapshotCache.go(javaInspector1, annotatedAPIConfiguration); // writes the snapshot
+        List<Path> snapshots;
+        try (Stream<Path> stream = Files.list(cacheDir)) {
+            snapshots = stream.toList();
+        }
+        assertEquals(1, snapshots.size());
+        FileTime written = Files.getLastModifiedTime(snapshots.getFirst());
+        doTests(javaInspector1);
+
+        JavaInspectorImpl javaInspector2 = javaInspectorForFiles();
+        int count2 = snapshotCache.go(javaInspector2, annotatedAPIConfiguration); // restores
+        assertEquals(count1, count2);
+        assertEquals(written, Files.getLastModifiedTime(snapshots.getFirst()));
+        doTests(javaInspector2);
+
+        int countEager = new LoadAnalyzedPackageFiles().go(javaInspectorForFiles(), annotatedAPIConfiguration);
+        assertEquals(countEager, count1);
+    }
+
+    @DisplayName("snapshot: corrupt snapshots are replaced, old snapshots are evicted")
+    @Test
+    public void test3SnapshotInvalidAndEviction() throws IOException {
+        AnnotatedAPIConfiguration annotatedAPIConfiguration = new AnnotatedAPIConfigurationImpl.Builder()
+                .addAnalyzedAnnotatedApiDirs(ToolChain.currentJdkAnalyzedPackages())
+                .build();
+        Path cacheDir = Files.createTempDirectory("snapshotCache");
+        for (int i = 0; i < 3; i++) {
+            Path old = Files.writeString(cacheDir.resolve("aaapi-old" + i + BinaryPackageFile.EXTENSION), "old");
+            Files.setLastModifiedTime(old, FileTime.fromMillis(1_000_000L * (i + 1)));
+        }
+        SnapshotCache snapshotCache = new SnapshotCache(cacheDir, 2);
+
+        int count1 = snapshotCache.go(javaInspectorForFiles(), annotatedAPIConfiguration);
+        List<String> fileNames;
+        try (Stream<Path> stream = Files.list(cacheDir)) {
+            fileNames = stream.map(p -> p.getFileName().toString()).sorted().toList();
+        }
+        assertEquals(2, fileNames.size());
+        assertTrue(fileNames.contains("aaapi-old2" + BinaryPackageFile.EXTENSION));
+        Path snapshot = cacheDir.resolve(fileNames.stream().filter(n -> !n.contains("old")).findFirst().orElseThrow());
+
+        // flip a byte in the body: the checksum in the header no longer matches, the snapshot is rewritten
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(snapshot, bytes);
+        JavaInspectorImpl javaInspector2 = javaInspectorForFiles();
+        int count2 = snapshotCache.go(javaInspector2, annotatedAPIConfiguration);
+        assertEquals(count1, count2);
+        assertNotEquals(bytes[bytes.length / 2], Files.readAllBytes(snapshot)[bytes.length / 2]);
+        doTests(javaInspector2);
+    }
+
     private static void doTests(JavaInspectorImpl javaInspector) {
         TypeInfo typeInfo = javaInspector.compiledTypesManager().get(Object.class);
         MethodInfo methodInfo = typeInfo.findUniqueMethod("toString", 0);
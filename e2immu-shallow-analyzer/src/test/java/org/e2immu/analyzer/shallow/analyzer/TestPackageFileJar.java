@@ -0,0 +1,104 @@
+package org.e2immu.analyzer.shallow.analyzer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestPackageFileJar {
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    @Test
+    public void test() throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("a/JavaUtil.json", "[\n]\n".getBytes(StandardCharsets.UTF_8));
+        entries.put("b/OrgE2immuSupport.json", "[\n{\"name\": \"Torg.e2immu.C\"}\n]\n".getBytes(StandardCharsets.UTF_8));
+        entries.put("JavaLang.aaapi", new byte[]{1, 2, 3});
+        Path jar = Files.createTempFile("packageFiles", ".jar");
+        try {
+            PackageFileJar.write(jar, entries);
+
+            Map<String, ByteBuffer> index = PackageFileJar.readIndex(ByteBuffer.wrap(Files.readAllBytes(jar)));
+            assertNotNull(index);
+            assertEquals(List.copyOf(entries.keySet()), List.copyOf(index.keySet()));
+            entries.forEach((name, content) -> assertArrayEquals(content, toBytes(index.get(name))));
+
+            // still a normal jar
+            int count = 0;
+            try (InputStream inputStream = Files.newInputStream(jar);
+                 JarInputStream jis = new JarInputStream(inputStream)) {
+                JarEntry jarEntry;
+                while ((jarEntry = jis.getNextJarEntry()) != null) {
+                    if (!PackageFileJar.INDEX_ENTRY.equals(jarEntry.getName())) {
+                        assertArrayEquals(entries.get(jarEntry.getName()), jis.readAllBytes());
+                        ++count;
+                    }
+                }
+            }
+            assertEquals(entries.size(), count);
+        } finally {
+            Files.delete(jar);
+        }
+    }
+
+    @Test
+    public void testBinaryForm() throws IOException {
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("JavaUtil" + BinaryPackageFile.EXTENSION, new byte[]{1, 2, 3});
+        entries.put("JavaUtil.json", "[\n]\n".repeat(1000).getBytes(StandardCharsets.UTF_8));
+        Path jar = Files.createTempFile("packageFiles", ".jar");
+        try {
+            PackageFileJar.write(jar, entries);
+
+            // the JSON form is compressed, and not in the index
+            Map<String, ByteBuffer> index = PackageFileJar.readIndex(ByteBuffer.wrap(Files.readAllBytes(jar)));
+            assertNotNull(index);
+            assertEquals(List.of("JavaUtil" + BinaryPackageFile.EXTENSION), List.copyOf(index.keySet()));
+            assertTrue(Files.size(jar) < entries.get("JavaUtil.json").length);
+
+            try (InputStream inputStream = Files.newInputStream(jar);
+                 JarInputStream jis = new JarInputStream(inputStream)) {
+                assertNotNull(jis.getManifest());
+                JarEntry jarEntry;
+                while ((jarEntry = jis.getNextJarEntry()) != null) {
+                    if (jarEntry.getName().endsWith(".json")) {
+                        assertEquals(JarEntry.DEFLATED, jarEntry.getMethod());
+                        assertArrayEquals(entries.get(jarEntry.getName()), jis.readAllBytes());
+                    }
+                }
+            }
+        } finally {
+            Files.delete(jar);
+        }
+    }
+
+    @Test
+    public void testBundledJars() throws IOException {
+        Path libsJar = Path.of("../e2immu-shallow-aapi/src/main/resources/org/e2immu/analyzer/shallow/aapi/analyzedPackageFiles/libs.jar");
+        Map<String, ByteBuffer> index = PackageFileJar.readIndex(ByteBuffer.wrap(Files.readAllBytes(libsJar)));
+        assertNotNull(index);
+        assertTrue(index.containsKey("e2immu-external-support/OrgE2immuSupport" + BinaryPackageFile.EXTENSION));
+        assertFalse(index.containsKey("e2immu-external-support/OrgE2immuSupport.json"));
+    }
+
+    @Test
+    public void testNoIndex() {
+        assertNull(PackageFileJar.readIndex(ByteBuffer.wrap(new byte[]{1, 2, 3})));
+    }
+}
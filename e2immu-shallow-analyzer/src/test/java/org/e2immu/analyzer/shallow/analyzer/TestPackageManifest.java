@@ -0,0 +1,66 @@
+package org.e2immu.analyzer.shallow.analyzer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestPackageManifest {
+
+    private static final Map<String, Set<String>> DEPENDENCIES = Map.of(
+            "java.lang", Set.of(),
+            "java.util", Set.of("java.lang", "java.util.function"),
+            "java.util.function", Set.of("java.lang"),
+            "java.io", Set.of("java.lang"));
+
+    private static Map<String, List<byte[]>> sources(String javaUtilFunction) {
+        return Map.of("java.lang", List.of("class JavaLang {}".getBytes(StandardCharsets.UTF_8)),
+                "java.util", List.of("class JavaUtil {}".getBytes(StandardCharsets.UTF_8)),
+                "java.util.function", List.of(javaUtilFunction.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testKeys() {
+        Map<String, String> keys = PackageManifest.computeKeys("jre 21", sources("class F {}"), DEPENDENCIES);
+        assertEquals(DEPENDENCIES.keySet(), keys.keySet());
+        assertEquals(keys, PackageManifest.computeKeys("jre 21", sources("class F {}"), DEPENDENCIES));
+
+        // a change in java.util.function affects java.util, which depends on it, but not java.lang or java.io
+        Map<String, String> keys2 = PackageManifest.computeKeys("jre 21", sources("class F { }"), DEPENDENCIES);
+        assertEquals(keys.get("java.lang"), keys2.get("java.lang"));
+        assertEquals(keys.get("java.io"), keys2.get("java.io"));
+        assertNotEquals(keys.get("java.util"), keys2.get("java.util"));
+        assertNotEquals(keys.get("java.util.function"), keys2.get("java.util.function"));
+
+        // a change in the environment affects all packages
+        Map<String, String> keys3 = PackageManifest.computeKeys("jre 23", sources("class F {}"), DEPENDENCIES);
+        keys.forEach((packageName, key) -> assertNotEquals(key, keys3.get(packageName)));
+    }
+
+    @Test
+    public void testReadWrite() throws IOException {
+        Path file = Files.createTempFile("json", Run.MANIFEST_EXTENSION);
+        try {
+            Map<String, String> keys = PackageManifest.computeKeys("jre 21", sources("class F {}"), DEPENDENCIES);
+            new PackageManifest(keys).write(file);
+            PackageManifest manifest = PackageManifest.read(file);
+            assertEquals(keys, manifest.keys());
+            assertTrue(manifest.isUnchanged("java.util", keys.get("java.util")));
+            assertFalse(manifest.isUnchanged("java.util", "?"));
+            assertFalse(manifest.isUnchanged("java.net", keys.get("java.util")));
+
+            Files.writeString(file, "something else\n");
+            assertTrue(PackageManifest.read(file).keys().isEmpty());
+        } finally {
+            Files.delete(file);
+        }
+        assertTrue(PackageManifest.read(file).keys().isEmpty());
+    }
+}
@@ -0,0 +1,113 @@
+package org.e2immu.analyzer.shallow.analyzer;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.e2immu.language.cst.api.analysis.Message;
+import org.e2immu.language.cst.api.info.Info;
+import org.e2immu.language.cst.api.info.MethodInfo;
+import org.e2immu.language.cst.api.info.TypeInfo;
+import org.e2immu.language.inspection.integration.JavaInspectorImpl;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+Differential test: analyzing the full JDK AAPI set in parallel must give exactly the same result as
+analyzing it sequentially.
+ */
+public class TestParallelShallowAnalyzer {
+
+    @BeforeAll
+    public static void beforeAll() {
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.INFO);
+        ((Logger) LoggerFactory.getLogger("org.e2immu.analyzer.shallow")).setLevel(Level.ERROR);
+    }
+
+    private static AnnotatedApiParser parse() throws IOException {
+        AnnotatedApiParser annotatedApiParser = new AnnotatedApiParser();
+        annotatedApiParser.initialize(null,
+                List.of(JavaInspectorImpl.JAR_WITH_PATH_PREFIX + "org/slf4j",
+                        JavaInspectorImpl.E2IMMU_SUPPORT,
+                        "jmod:java.datatransfer",
+                        "jmod:java.desktop"),
+                List.of("../e2immu-shallow-aapi/src/main/java/org/e2immu/analyzer/shallow/aapi"),
+                List.of("java", "javax"));
+        return annotatedApiParser;
+    }
+
+    private static String describe(Info info) {
+        return info.fullyQualifiedName() + " " + info.analysis().propertyValueStream()
+                .map(pv -> pv.property().key() + "=" + pv.value())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private static List<String> analysis(List<TypeInfo> sorted) {
+        return sorted.stream()
+                .sorted(Comparator.comparing(TypeInfo::fullyQualifiedName))
+                .flatMap(typeInfo -> Stream.<Stream<? extends Info>>of(
+                        Stream.of(typeInfo),
+                        typeInfo.fields().stream(),
+                        typeInfo.constructorAndMethodStream(),
+                        typeInfo.constructorAndMethodStream().map(MethodInfo::parameters).flatMap(List::stream)
+                ).<Info>flatMap(s -> s))
+                .map(TestParallelShallowAnalyzer::describe)
+                .toList();
+    }
+
+    private static List<String> messages(List<Message> messages) {
+        return messages.stream().map(m -> m.level() + " " + m.info().fullyQualifiedName() + ": " + m.message())
+                .toList();
+    }
+
+    @Test
+    public void test() throws IOException {
+        ShallowAnalyzer sequential = new ShallowAnalyzer(parse());
+        List<String> expected = analysis(sequential.go());
+
+        ShallowAnalyzer parallel;
+        List<String> actual;
+        try (ExecutorService executor = new ForkJoinPool(4)) {
+            parallel = new ShallowAnalyzer(parse(), executor);
+            actual = analysis(parallel.go());
+        }
+
+        assertTrue(expected.size() > 1000, "Have " + expected.size());
+        assertEquals(expected, actual);
+        assertEquals(sequential.getSorted().stream().map(TypeInfo::fullyQualifiedName).toList(),
+                parallel.getSorted().stream().map(TypeInfo::fullyQualifiedName).toList());
+        // the per-type message buckets are concatenated in the order of the linearization
+        assertEquals(messages(sequential.getMessages()), messages(parallel.getMessages()));
+
+        testLevels(sequential.getSorted());
+    }
+
+    private static void testLevels(List<TypeInfo> sorted) {
+        List<List<TypeInfo>> levels = ShallowAnalyzer.levels(sorted);
+        assertEquals(sorted.size(), levels.stream().mapToInt(List::size).sum());
+        Map<TypeInfo, Integer> levelOf = new HashMap<>();
+        for (int l = 0; l < levels.size(); l++) {
+            for (TypeInfo typeInfo : levels.get(l)) levelOf.put(typeInfo, l);
+        }
+        Map<TypeInfo, Integer> position = new HashMap<>();
+        for (int i = 0; i < sorted.size(); i++) position.put(sorted.get(i), i);
+        for (TypeInfo typeInfo : sorted) {
+            typeInfo.recursiveSuperTypeStream().filter(levelOf::containsKey).forEach(superType -> {
+                // same relative order as in the linearization, never in the same level
+                boolean superTypeFirst = position.get(superType) < position.get(typeInfo);
+                assertEquals(superTypeFirst, levelOf.get(superType) < levelOf.get(typeInfo), typeInfo + " " + superType);
+            });
+        }
+        assertTrue(levels.size() < sorted.size(), "Have " + levels.size() + " levels");
+    }
+}
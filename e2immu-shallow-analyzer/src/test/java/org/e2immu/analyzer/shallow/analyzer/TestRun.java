@@ -2,12 +2,19 @@ package org.e2immu.analyzer.shallow.analyzer;
 
 import ch.qos.logback.classic.Level;
 import org.e2immu.language.cst.api.analysis.Message;
+import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 public class TestRun {
     private static final Logger LOGGER = LoggerFactory.getLogger(TestRun.class);
@@ -19,10 +26,12 @@ public class TestRun {
         ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.INFO);
         ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger("org.e2immu.analyzer.shallow")).setLevel(Level.DEBUG);
 
-        for (ToolChain.JRE jre : ToolChain.JRES) {
+        for (ToolChain.JRE jre : ToolChain.jres()) {
             if ("Homebrew".equals(jre.vendor()) && 17 <= jre.mainVersion()) {
                 Run run = new Run();
-                List<Message> messages = run.go(jre.path(), SOURCES);
+                Run.Result result = run.goWithMetrics(jre.path(), SOURCES);
+                List<Message> messages = result.messages();
+                LOGGER.info("Metrics: {}", result.metrics().toJson());
                 LOGGER.info("Have {} message(s)", messages.size());
                 messages.forEach(m -> {
                     LOGGER.info("{} {}: {}", m.level(), m.info(), m.message());
@@ -30,4 +39,69 @@ public class TestRun {
             }
         }
     }
+
+    @DisplayName("an incremental run produces the same analyzed package files as a full run")
+    @Test
+    public void testIncremental() throws IOException {
+        Path sources = Files.createTempDirectory("aapi");
+        copyDirectory(Path.of(SOURCES[0]), sources);
+        String[] args = {sources.toString()};
+
+        Path incremental = Files.createTempDirectory("runIncremental");
+        Run.Result first = new Run(true, incremental.toFile()).goWithMetrics(null, args);
+        assertEquals(0L, first.metrics().counts().get("packagesUnchanged"));
+        Map<String, String> keys1 = PackageManifest.read(incremental.resolve("json" + Run.MANIFEST_EXTENSION)).keys();
+
+        // javax.swing.text depends on javax.swing (JTextComponent extends JComponent); java.util does not
+        Path javaxSwing = sources.resolve("javax/JavaxSwing.java");
+        Files.writeString(javaxSwing, Files.readString(javaxSwing) + "// edited\n");
+        Path stale = Files.writeString(incremental.resolve("json/JavaNoSuchPackage.json"), "[]\n");
+
+        Run.Result second = new Run(true, incremental.toFile()).goWithMetrics(null, args);
+        Map<String, String> keys2 = PackageManifest.read(incremental.resolve("json" + Run.MANIFEST_EXTENSION)).keys();
+        assertNotEquals(keys1.get("javax.swing"), keys2.get("javax.swing"));
+        assertNotEquals(keys1.get("javax.swing.text"), keys2.get("javax.swing.text"));
+        assertEquals(keys1.get("java.util"), keys2.get("java.util"));
+        assertTrue(second.metrics().counts().get("packagesUnchanged") > 0);
+        assertFalse(Files.exists(stale));
+
+        Path full = Files.createTempDirectory("runFull");
+        Run.Result fullResult = new Run(false, full.toFile()).goWithMetrics(null, args);
+        assertDirectoryEquals(full.resolve("json"), incremental.resolve("json"));
+        assertEquals(Files.readString(full.resolve("json" + Run.MESSAGES_EXTENSION)),
+                Files.readString(incremental.resolve("json" + Run.MESSAGES_EXTENSION)));
+        assertEquals(describe(fullResult.messages()), describe(second.messages()));
+    }
+
+    private static void copyDirectory(Path from, Path to) throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(from)) {
+            files = stream.filter(Files::isRegularFile).toList();
+        }
+        for (Path file : files) {
+            Path target = to.resolve(from.relativize(file).toString());
+            Files.createDirectories(target.getParent());
+            Files.copy(file, target);
+        }
+    }
+
+    private static void assertDirectoryEquals(Path expected, Path actual) throws IOException {
+        List<String> expectedFiles = fileNames(expected);
+        assertEquals(expectedFiles, fileNames(actual));
+        for (String fileName : expectedFiles) {
+            assertArrayEquals(Files.readAllBytes(expected.resolve(fileName)),
+                    Files.readAllBytes(actual.resolve(fileName)), fileName);
+        }
+    }
+
+    private static List<String> fileNames(Path directory) throws IOException {
+        try (Stream<Path> stream = Files.list(directory)) {
+            return stream.map(p -> p.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    // in order: the same messages, in the same order
+    private static List<String> describe(List<Message> messages) {
+        return messages.stream().map(m -> m.info() + ": " + m.message()).toList();
+    }
 }
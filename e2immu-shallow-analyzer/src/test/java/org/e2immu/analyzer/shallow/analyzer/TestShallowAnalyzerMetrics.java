@@ -0,0 +1,46 @@
+package org.e2immu.analyzer.shallow.analyzer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestShallowAnalyzerMetrics {
+
+    @Test
+    public void test() throws IOException, InterruptedException {
+        ShallowAnalyzerMetrics metrics = new ShallowAnalyzerMetrics();
+        assertNull(metrics.totals(ShallowAnalyzerMetrics.Stage.PARSE));
+        for (int i = 0; i < 2; i++) {
+            try (ShallowAnalyzerMetrics.Measurement ignored = metrics.start(ShallowAnalyzerMetrics.Stage.PARSE)) {
+                Thread.sleep(2);
+            }
+        }
+        ShallowAnalyzerMetrics.Totals parse = metrics.totals(ShallowAnalyzerMetrics.Stage.PARSE);
+        assertEquals(2, parse.entered());
+        assertTrue(parse.wallNanos() >= 4_000_000L, "Have " + parse.wallNanos());
+        assertTrue(parse.cpuNanos() >= 0);
+        assertTrue(parse.allocatedBytes() >= 0);
+
+        metrics.count("types", 4);
+        metrics.count("types", 5);
+        assertEquals(Map.of("types", 5L), metrics.counts());
+
+        String json = metrics.toJson();
+        assertTrue(json.startsWith("{\"stages\":{\"parse\":{\"wallNanos\":"), json);
+        assertTrue(json.endsWith(",\"entered\":2}},\"counts\":{\"types\":5}}"), json);
+        assertFalse(json.contains("typeAnalysis"), json);
+
+        Path file = Files.createTempFile("metrics", ".json");
+        try {
+            metrics.write(file);
+            assertEquals(json + "\n", Files.readString(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -10,6 +10,7 @@ import java.util.stream.Collectors;
 import java.util.zip.ZipFile;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TestSortTypes extends CommonTest {
@@ -39,4 +40,14 @@ public class TestSortTypes extends CommonTest {
         assertTrue(ia < iz, ia + ">" + iz);
     }
 
+    @Test
+    public void testSuperTypeCache() {
+        TypeInfo zipFile = compiledTypesManager.get(ZipFile.class);
+        SuperTypeCache superTypeCache = new SuperTypeCache();
+        assertEquals(zipFile.recursiveSuperTypeStream().toList(), superTypeCache.superTypes(zipFile));
+        assertSame(superTypeCache.superTypes(zipFile), superTypeCache.superTypes(zipFile));
+        assertEquals("java.io.Closeable,java.lang.AutoCloseable,java.lang.Object",
+                superTypeCache.distinctPublicSuperTypes(zipFile).stream().map(TypeInfo::fullyQualifiedName)
+                        .sorted().collect(Collectors.joining(",")));
+    }
 }
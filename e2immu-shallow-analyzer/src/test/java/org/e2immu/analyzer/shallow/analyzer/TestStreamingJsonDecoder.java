@@ -0,0 +1,133 @@
+package org.e2immu.analyzer.shallow.analyzer;
+
+import org.intellij.lang.annotations.Language;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TestStreamingJsonDecoder {
+
+    @Language("json")
+    private static final String INPUT = """
+            [
+            {"name": "Torg.e2immu.C", "data":{"commutableMethods":["p1","p2,p3","p4"],"immutableType":3,"shallowAnalyzer":1}, "subs":[
+             {"name": "Mm1(0)", "data":{"hc":{"0":"PE:0","M":1}}, "sub":
+              {"name": "Pp(0)", "data":{"hcsParameter":{"0":[[-1]]}}}},
+             {"name": "Mm2(1)", "data":{}}]},
+            {"name": "Torg.e2immu.D", "data":{"annotatedApi":1}}
+            ]
+            """;
+
+    private static final String EXPECT = """
+            start
+            Torg.e2immu.C
+            commutableMethods=["p1","p2,p3","p4"]
+            immutableType=3
+            shallowAnalyzer=1
+            /data
+            Mm1(0)
+            hc={"0":"PE:0","M":1}
+            /data
+            Pp(0)
+            hcsParameter={"0":[[-1]]}
+            /data
+            /info
+            /info
+            Mm2(1)
+            /data
+            /info
+            /info
+            end
+            start
+            Torg.e2immu.D
+            annotatedApi=1
+            /data
+            /info
+            end
+            """;
+
+    static class Recorder implements StreamingJsonDecoder.Handler {
+        final StringBuilder sb = new StringBuilder();
+
+        @Override
+        public void startPrimaryType() {
+            sb.append("start\n");
+        }
+
+        @Override
+        public void startInfo(char type, String name) {
+            sb.append(type).append(name).append("\n");
+        }
+
+        @Override
+        public void property(String key, String value) {
+            sb.append(key).append("=").append(value).append("\n");
+        }
+
+        @Override
+        public void endData() {
+            sb.append("/data\n");
+        }
+
+        @Override
+        public void endInfo() {
+            sb.append("/info\n");
+        }
+
+        @Override
+        public void endPrimaryType() {
+            sb.append("end\n");
+        }
+    }
+
+    @Test
+    public void test() throws IOException {
+        Recorder recorder = new Recorder();
+        int count = new StreamingJsonDecoder(new StringReader(INPUT), recorder).go();
+        assertEquals(2, count);
+        assertEquals(EXPECT, recorder.sb.toString());
+    }
+
+    @Test
+    public void testByteBuffer() throws IOException {
+        String input = INPUT.replace("p2,p3", "p2,\u00e9\u20ac\uD83D\uDE00");
+        Recorder fromReader = new Recorder();
+        new StreamingJsonDecoder(new StringReader(input), fromReader).go();
+        Recorder fromBuffer = new Recorder();
+        ByteBuffer buffer = ByteBuffer.wrap(input.getBytes(StandardCharsets.UTF_8));
+        assertEquals(2, new StreamingJsonDecoder(buffer, fromBuffer).go());
+        assertEquals(fromReader.sb.toString(), fromBuffer.sb.toString());
+
+        ByteBuffer truncated = ByteBuffer.wrap(new byte[]{'[', (byte) 0xE2, (byte) 0x82});
+        assertThrows(IOException.class, () -> new StreamingJsonDecoder(truncated, new Recorder()).go());
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        assertEquals(0, new StreamingJsonDecoder(new StringReader("[\n]\n"), new Recorder()).go());
+    }
+
+    @Test
+    public void testSyntaxError() {
+        String input = "[{\"name\": \"Ta.b\", \"data\":{\"x\":1}";
+        assertThrows(IOException.class, () -> new StreamingJsonDecoder(new StringReader(input), new Recorder()).go());
+    }
+
+    @Test
+    public void testUnicodeEscape() throws IOException {
+        Recorder recorder = new Recorder();
+        new StreamingJsonDecoder(new StringReader("[{\"name\": \"Ta.\\u0042\", \"data\":{}}]"), recorder).go();
+        assertEquals("start\nTa.B\n/data\n/info\nend\n", recorder.sb.toString());
+
+        String malformed = "[{\"name\": \"Ta.\\u00G2\", \"data\":{}}]";
+        assertThrows(IOException.class, () -> new StreamingJsonDecoder(new StringReader(malformed), new Recorder()).go());
+        String truncated = "[{\"name\": \"Ta.\\u00";
+        assertThrows(IOException.class, () -> new StreamingJsonDecoder(new StringReader(truncated), new Recorder()).go());
+    }
+}
@@ -31,6 +31,31 @@ public class TestToolChain {
                 "jar:file:/usr/lib/jvm/java-23-openjdk-arm64/jmods/java.base.jmod!/classes/java/io/BufferedInputStream.class"));
     }
 
+    @Test
+    public void testCurrentJre() {
+        ToolChain.JRE jre = ToolChain.currentJre();
+        assertEquals(System.getProperty("java.home"), jre.path());
+        assertEquals(Runtime.version().feature(), jre.mainVersion());
+        assertEquals(jre.mainVersion(), ToolChain.currentJdkMainVersion());
+
+        ToolChain.JRE linux = DetectJREs.parseLinuxLine("/usr/lib/jvm/java-21-openjdk-arm64/bin/java");
+        assertNotNull(linux);
+        assertEquals("openjdk-21", linux.shortName());
+        assertNull(DetectJREs.parseLinuxLine("/opt/homebrew/Cellar/openjdk/23.0.2/libexec/openjdk.jdk/Contents/Home"));
+        assertEquals("IBMCorporation-17.0.9", DetectJREs.shortName("IBM Corporation", "17.0.9"));
+    }
+
+    @Test
+    public void testCurrentJreMacOs() {
+        if (!"Mac OS X".equals(System.getProperty("os.name"))) return;
+        ToolChain.JRE jre = ToolChain.currentJre();
+        ToolChain.JRE detected = DetectJREs.runSystemCommandMacOs().stream()
+                .filter(j -> jre.path().equals(j.path()))
+                .findFirst().orElseThrow();
+        assertEquals(detected.shortName(), jre.shortName());
+        assertEquals(detected.mainVersion(), jre.mainVersion());
+    }
+
     @Test
     public void test() throws IOException {
         InputConfigurationImpl.Builder inputConfigurationBuilder = new InputConfigurationImpl.Builder()
@@ -5,8 +5,10 @@ import org.e2immu.language.cst.api.info.MethodInfo;
 import org.e2immu.language.cst.api.info.TypeInfo;
 import org.e2immu.language.cst.api.runtime.Runtime;
 import org.e2immu.language.cst.impl.analysis.PropertyImpl;
+import org.e2immu.language.cst.impl.analysis.PropertyProviderImpl;
 import org.e2immu.language.cst.impl.analysis.ValueImpl;
 import org.e2immu.language.cst.impl.runtime.RuntimeImpl;
+import org.e2immu.language.cst.io.CodecImpl;
 import org.e2immu.util.internal.util.Trie;
 import org.intellij.lang.annotations.Language;
 import org.junit.jupiter.api.Test;
@@ -16,8 +18,12 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class TestWriteAnalysis {
     private static final Logger LOGGER = LoggerFactory.getLogger(TestWriteAnalysis.class);
@@ -32,10 +38,9 @@ public class TestWriteAnalysis {
            ]
            """;
 
-    @Test
-    public void test() throws IOException {
-        CompilationUnit cu = runtime.newCompilationUnitBuilder().setPackageName("org.e2immu").build();
-        TypeInfo typeInfo = runtime.newTypeInfo(cu, "C");
+    private TypeInfo makeType(String packageName, String simpleName) {
+        CompilationUnit cu = runtime.newCompilationUnitBuilder().setPackageName(packageName).build();
+        TypeInfo typeInfo = runtime.newTypeInfo(cu, simpleName);
 
         typeInfo.analysis().set(PropertyImpl.IMMUTABLE_TYPE, ValueImpl.ImmutableImpl.IMMUTABLE);
         typeInfo.analysis().set(PropertyImpl.SHALLOW_ANALYZER, ValueImpl.BoolImpl.TRUE);
@@ -45,6 +50,12 @@ public class TestWriteAnalysis {
         MethodInfo methodInfo = runtime.newMethod(typeInfo, "m1", runtime.methodTypeMethod());
         methodInfo.analysis().set(PropertyImpl.SHALLOW_ANALYZER, ValueImpl.BoolImpl.TRUE);
         typeInfo.builder().addMethod(methodInfo);
+        return typeInfo;
+    }
+
+    @Test
+    public void test() throws IOException {
+        TypeInfo typeInfo = makeType("org.e2immu", "C");
 
         WriteAnalysis wa = new WriteAnalysis(runtime);
         Trie<TypeInfo> trie = new Trie<>();
@@ -57,4 +68,49 @@ public class TestWriteAnalysis {
 
         assertEquals(EXPECT, s);
     }
+
+    @Test
+    public void testParallel() throws IOException {
+        Trie<TypeInfo> trie = new Trie<>();
+        for (String packageName : new String[]{"org.e2immu", "org.e2immu.a", "org.e2immu.b", "com.foo"}) {
+            for (String simpleName : new String[]{"C", "D"}) {
+                trie.add(packageName.split("\\."), makeType(packageName, simpleName));
+            }
+        }
+        Path sequentialDir = Files.createTempDirectory("sequential");
+        new WriteAnalysis(runtime).write(sequentialDir.toString(), trie);
+        Path parallelDir = Files.createTempDirectory("parallel");
+        Path supplierDir = Files.createTempDirectory("supplier");
+        Path singleCodecDir = Files.createTempDirectory("singleCodec");
+        AtomicInteger codecs = new AtomicInteger();
+        try (ExecutorService executor = Executors.newFixedThreadPool(3)) {
+            WriteAnalysis wa = new WriteAnalysis(runtime, false, executor);
+            wa.write(parallelDir.toString(), trie);
+            wa.write(supplierDir.toFile(), trie, () -> {
+                codecs.incrementAndGet();
+                return new CodecImpl(runtime, PropertyProviderImpl::get, null, null);
+            }, sourceSet -> "");
+            // a single codec cannot be shared among threads: written sequentially
+            wa.write(singleCodecDir.toFile(), trie, new CodecImpl(runtime, PropertyProviderImpl::get, null, null));
+        }
+        assertEquals(4, codecs.get());
+        for (String fileName : new String[]{"OrgE2immu.json", "OrgE2immuA.json", "OrgE2immuB.json", "ComFoo.json"}) {
+            byte[] expected = Files.readAllBytes(sequentialDir.resolve(fileName));
+            assertArrayEquals(expected, Files.readAllBytes(parallelDir.resolve(fileName)), fileName);
+            assertArrayEquals(expected, Files.readAllBytes(supplierDir.resolve(fileName)), fileName);
+            assertArrayEquals(expected, Files.readAllBytes(singleCodecDir.resolve(fileName)), fileName);
+        }
+    }
+
+    @Test
+    public void testIOException() throws IOException {
+        Trie<TypeInfo> trie = new Trie<>();
+        trie.add(new String[]{"org", "e2immu"}, makeType("org.e2immu", "C"));
+        Path notADirectory = Files.createTempFile("notADirectory", ".txt");
+        assertThrows(IOException.class, () -> new WriteAnalysis(runtime).write(notADirectory.toString(), trie));
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            WriteAnalysis wa = new WriteAnalysis(runtime, false, executor);
+            assertThrows(IOException.class, () -> wa.write(notADirectory.toString(), trie));
+        }
+    }
 }
@@ -0,0 +1,54 @@
+package org.e2immu.analyzer.shallow.analyzer;
+
+import org.e2immu.language.cst.api.info.TypeInfo;
+import org.e2immu.language.inspection.api.integration.JavaInspector;
+import org.e2immu.language.inspection.integration.JavaInspectorImpl;
+import org.e2immu.language.inspection.resource.InputConfigurationImpl;
+import org.e2immu.util.internal.util.Trie;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestWriteDecoratedAAPI {
+
+    private static final Set<String> PACKAGES = Set.of("java.util", "java.util.function", "java.lang.invoke");
+    private static final String[] FILES = {"JavaUtil.java", "JavaUtilFunction.java", "JavaLangInvoke.java"};
+
+    @Test
+    public void testParallel() throws IOException {
+        JavaInspector javaInspector = new JavaInspectorImpl();
+        javaInspector.initialize(new InputConfigurationImpl.Builder()
+                .addSources("none")
+                .addClassPath(JavaInspectorImpl.E2IMMU_SUPPORT)
+                .addClassPath("jmod:java.base")
+                .build());
+        List<TypeInfo> primaryTypes = javaInspector.compiledTypesManager().typesLoaded().stream()
+                .filter(TypeInfo::isPrimaryType)
+                .filter(t -> PACKAGES.contains(t.packageName()))
+                .toList();
+        Trie<TypeInfo> trie = new Trie<>();
+        primaryTypes.forEach(t -> trie.add(t.packageName().split("\\."), t));
+
+        Path sequentialDir = Files.createTempDirectory("sequential");
+        new WriteDecoratedAAPI(javaInspector).write(sequentialDir.toString(), trie);
+        Path parallelDir = Files.createTempDirectory("parallel");
+        try (ExecutorService executor = Executors.newFixedThreadPool(3)) {
+            new WriteDecoratedAAPI(javaInspector, executor).write(parallelDir.toString(), trie);
+        }
+        for (String fileName : FILES) {
+            Path sequential = sequentialDir.resolve("org/e2immu").resolve(fileName);
+            Path parallel = parallelDir.resolve("org/e2immu").resolve(fileName);
+            assertArrayEquals(Files.readAllBytes(sequential), Files.readAllBytes(parallel), fileName);
+        }
+        String javaLangInvoke = Files.readString(sequentialDir.resolve("org/e2immu/JavaLangInvoke.java"));
+        assertTrue(javaLangInvoke.contains("public static final String PACKAGE_NAME = \"java.lang.invoke\";"));
+    }
+}
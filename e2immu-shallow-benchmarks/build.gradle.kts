@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2022-2023, CodeLaser BV, Belgium.
+ * Unauthorized copying of this file, via any medium, is strictly prohibited.
+ * Proprietary and confidential.
+ */
+
+/*
+ JMH benchmarks of the stages of the shallow analyzer pipeline, on the openjdk-21 AAPI data of e2immu-shallow-aapi.
+ Run from the root of the composite build with
+
+ gradle jmh
+
+ or a selection, e.g. gradle :e2immu-shallow-benchmarks:jmh -PjmhIncludes=ShallowAnalyzerBenchmark
+ Results, including the allocation rates of the GC profiler, end up in build/results/jmh/results.json.
+ */
+
+plugins {
+    java
+    id("me.champeau.jmh") version "0.7.2"
+}
+
+group = "org.e2immu"
+
+
+repositories {
+    maven {
+        url = uri(project.findProperty("codeartifactUri") as String)
+        credentials {
+            username = "aws"
+            password = project.findProperty("codeartifactToken") as String
+        }
+    }
+    mavenCentral()
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_21
+    targetCompatibility = JavaVersion.VERSION_21
+}
+
+val slf4jVersion = project.findProperty("slf4jVersion") as String
+val logbackClassicVersion = project.findProperty("logbackClassicVersion") as String
+
+dependencies {
+    jmhImplementation("org.e2immu:e2immu-shallow-analyzer:$version")
+    jmhImplementation("org.e2immu:e2immu-shallow-aapi:$version")
+    jmhImplementation("org.e2immu:e2immu-cst-api:$version")
+    jmhImplementation("org.e2immu:e2immu-internal-util:$version")
+    jmhImplementation("org.e2immu:e2immu-inspection-api:$version")
+    jmhImplementation("org.e2immu:e2immu-inspection-integration:$version")
+    jmhImplementation("org.e2immu:e2immu-inspection-resource:$version")
+    jmhImplementation("org.e2immu:e2immu-modification-prepwork:$version")
+
+    jmhImplementation("org.slf4j:slf4j-api:$slf4jVersion")
+    jmhImplementation("ch.qos.logback:logback-classic:$logbackClassicVersion")
+}
+
+jmh {
+    jmhVersion.set(project.findProperty("jmhVersion") as String)
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    // the forked JVMs do not necessarily start in this directory
+    jvmArgsAppend.add("-De2immu.aapi=" + file("../e2immu-shallow-aapi").absolutePath)
+    (project.findProperty("jmhIncludes") as String?)?.let { includes.add(it) }
+}
@@ -0,0 +1,85 @@
+package org.e2immu.analyzer.shallow.benchmarks;
+
+import org.e2immu.analyzer.modification.prepwork.PrepAnalyzer;
+import org.e2immu.analyzer.shallow.analyzer.AnnotatedApiParser;
+import org.e2immu.analyzer.shallow.analyzer.ShallowAnalyzer;
+import org.e2immu.language.cst.api.info.TypeInfo;
+import org.e2immu.language.inspection.api.integration.JavaInspector;
+import org.e2immu.language.inspection.integration.JavaInspectorImpl;
+import org.e2immu.language.inspection.resource.InputConfigurationImpl;
+import org.e2immu.util.internal.util.Trie;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/*
+The input of the benchmarks: the AAPI source files and the analyzed package files of openjdk-21, both in
+e2immu-shallow-aapi. The location of that module is passed on by the build in the system property e2immu.aapi.
+
+Some benchmarks need a fresh JavaInspector or AnnotatedApiParser for every iteration, because the analysis of an
+Info object can be set only once. That set-up is not part of the measured time, but JMH's GC profiler does count
+its allocations: compare the gc.alloc.rate.norm figures between runs, rather than reading them in isolation.
+ */
+public class AapiData {
+    public static final String JDK = "openjdk-21.0.7";
+    public static final String AAPI_MODULE = System.getProperty("e2immu.aapi", "../e2immu-shallow-aapi");
+    public static final String SOURCES = AAPI_MODULE + "/src/main/java/org/e2immu/analyzer/shallow/aapi";
+    public static final File JDK_DIR = new File(AAPI_MODULE,
+            "src/main/resources/org/e2immu/analyzer/shallow/aapi/analyzedPackageFiles/jdk/" + JDK);
+
+    public record Analyzed(AnnotatedApiParser annotatedApiParser, List<TypeInfo> types) {
+        public List<TypeInfo> primaryTypes() {
+            return types.stream().filter(TypeInfo::isPrimaryType).toList();
+        }
+
+        // as in Run: per package, all primary types
+        public Trie<TypeInfo> trie() {
+            Trie<TypeInfo> trie = new Trie<>();
+            for (TypeInfo typeInfo : primaryTypes()) {
+                trie.add(typeInfo.packageName().split("\\."), typeInfo);
+            }
+            return trie;
+        }
+    }
+
+    // the class path of the analyzed package files of the JDK, see TestLoadAnalyzedPackageFiles
+    public static JavaInspector javaInspector() throws IOException {
+        JavaInspectorImpl javaInspector = new JavaInspectorImpl();
+        InputConfigurationImpl.Builder builder = new InputConfigurationImpl.Builder();
+        Stream.of("jmod:java.base", "jmod:java.xml", "jmod:java.net.http", "jmod:java.desktop",
+                "jmod:java.datatransfer", JavaInspectorImpl.E2IMMU_SUPPORT).forEach(builder::addClassPath);
+        javaInspector.initialize(builder.build());
+        return javaInspector;
+    }
+
+    public static AnnotatedApiParser parse() throws IOException {
+        AnnotatedApiParser annotatedApiParser = new AnnotatedApiParser();
+        annotatedApiParser.initialize(null,
+                List.of(JavaInspectorImpl.E2IMMU_SUPPORT, "jmod:java.datatransfer", "jmod:java.desktop"),
+                List.of(SOURCES),
+                List.of("java", "javax"));
+        return annotatedApiParser;
+    }
+
+    // the analysis as done by Run, before the analyzed package files are written
+    public static Analyzed analyze() throws IOException {
+        AnnotatedApiParser annotatedApiParser = parse();
+        List<TypeInfo> types = new ShallowAnalyzer(annotatedApiParser).go();
+        PrepAnalyzer prepAnalyzer = new PrepAnalyzer(annotatedApiParser.runtime());
+        prepAnalyzer.initialize(annotatedApiParser.javaInspector().compiledTypesManager().typesLoaded());
+        return new Analyzed(annotatedApiParser, types);
+    }
+
+    public static void delete(Path directory) throws IOException {
+        try (Stream<Path> walk = Files.walk(directory)) {
+            for (Path path : walk.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package org.e2immu.analyzer.shallow.benchmarks;
+
+import org.e2immu.analyzer.shallow.analyzer.AnnotatedApiParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/*
+Parsing the AAPI source files of the JDK, and transferring their annotations; AnnotatedApiParser.initialize.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class AnnotatedApiParserBenchmark {
+
+    @Benchmark
+    public AnnotatedApiParser initialize() throws IOException {
+        return AapiData.parse();
+    }
+}
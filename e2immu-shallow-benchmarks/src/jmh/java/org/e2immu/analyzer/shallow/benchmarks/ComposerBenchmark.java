@@ -0,0 +1,55 @@
+package org.e2immu.analyzer.shallow.benchmarks;
+
+import org.e2immu.analyzer.shallow.analyzer.Composer;
+import org.e2immu.analyzer.shallow.analyzer.DecoratorImpl;
+import org.e2immu.language.cst.api.info.Info;
+import org.e2immu.language.cst.api.info.TypeInfo;
+import org.e2immu.language.inspection.api.integration.JavaInspector;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+Composing the decorated AAPI source files of the analyzed JDK types, and printing them: Composer.compose and write.
+The analysis is done once; every invocation overwrites the same files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ComposerBenchmark {
+
+    private JavaInspector javaInspector;
+    private List<TypeInfo> primaryTypes;
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        AapiData.Analyzed analyzed = AapiData.analyze();
+        javaInspector = analyzed.annotatedApiParser().javaInspector();
+        primaryTypes = analyzed.primaryTypes();
+        directory = Files.createTempDirectory("composer");
+    }
+
+    @Benchmark
+    public int composeAndWrite() throws IOException {
+        Composer composer = new Composer(javaInspector, set -> "org.e2immu", w -> true);
+        Collection<TypeInfo> apiTypes = composer.compose(primaryTypes);
+        Map<Info, Info> dollarMap = composer.translateFromDollarToReal();
+        composer.write(apiTypes, directory.toFile(), new DecoratorImpl(javaInspector.runtime(), dollarMap));
+        return apiTypes.size();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        AapiData.delete(directory);
+    }
+}
@@ -0,0 +1,46 @@
+package org.e2immu.analyzer.shallow.benchmarks;
+
+import org.e2immu.analyzer.shallow.analyzer.AnnotatedAPIConfiguration;
+import org.e2immu.analyzer.shallow.analyzer.AnnotatedAPIConfigurationImpl;
+import org.e2immu.analyzer.shallow.analyzer.LoadAnalyzedPackageFiles;
+import org.e2immu.analyzer.shallow.analyzer.ToolChain;
+import org.e2immu.language.inspection.api.integration.JavaInspector;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/*
+Loading the analyzed package files of openjdk-21, from the indexed jar on the class path ("resource:"),
+or from the directory of JSON files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class LoadAnalyzedPackageFilesBenchmark {
+
+    @Param({"resource", "directory"})
+    public String source;
+
+    private JavaInspector javaInspector;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        javaInspector = AapiData.javaInspector();
+    }
+
+    @Benchmark
+    public int load() throws IOException {
+        LoadAnalyzedPackageFiles loadAnalyzedPackageFiles = new LoadAnalyzedPackageFiles();
+        if ("resource".equals(source)) {
+            AnnotatedAPIConfiguration annotatedAPIConfiguration = new AnnotatedAPIConfigurationImpl.Builder()
+                    .addAnalyzedAnnotatedApiDirs(ToolChain.jdkAnalyzedPackages(AapiData.JDK))
+                    .build();
+            return loadAnalyzedPackageFiles.go(javaInspector, annotatedAPIConfiguration);
+        }
+        return loadAnalyzedPackageFiles.goDir(javaInspector, AapiData.JDK_DIR);
+    }
+}
@@ -0,0 +1,50 @@
+package org.e2immu.analyzer.shallow.benchmarks;
+
+import org.e2immu.analyzer.shallow.analyzer.AnnotatedApiParser;
+import org.e2immu.analyzer.shallow.analyzer.ShallowAnalyzer;
+import org.e2immu.language.cst.api.info.TypeInfo;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/*
+ShallowAnalyzer.go on the parsed AAPI source files of the JDK; sequentially (threads = 0), or in parallel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ShallowAnalyzerBenchmark {
+
+    @Param({"0", "4"})
+    public int threads;
+
+    private ExecutorService executor;
+    private AnnotatedApiParser annotatedApiParser;
+
+    @Setup(Level.Trial)
+    public void setUpExecutor() {
+        executor = threads == 0 ? null : Executors.newFixedThreadPool(threads);
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        annotatedApiParser = AapiData.parse();
+    }
+
+    @Benchmark
+    public List<TypeInfo> go() {
+        return new ShallowAnalyzer(annotatedApiParser, executor).go();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (executor != null) executor.shutdown();
+    }
+}
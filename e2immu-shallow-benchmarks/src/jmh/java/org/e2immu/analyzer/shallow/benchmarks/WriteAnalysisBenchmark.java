@@ -0,0 +1,48 @@
+package org.e2immu.analyzer.shallow.benchmarks;
+
+import org.e2immu.analyzer.shallow.analyzer.WriteAnalysis;
+import org.e2immu.language.cst.api.info.TypeInfo;
+import org.e2immu.util.internal.util.Trie;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/*
+Writing the analyzed package files of the JDK, as JSON or in the binary format.
+The analysis is done once; every invocation overwrites the same files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class WriteAnalysisBenchmark {
+
+    @Param({"false", "true"})
+    public boolean binary;
+
+    private AapiData.Analyzed analyzed;
+    private Trie<TypeInfo> trie;
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        analyzed = AapiData.analyze();
+        trie = analyzed.trie();
+        directory = Files.createTempDirectory("writeAnalysis");
+    }
+
+    @Benchmark
+    public void write() throws IOException {
+        new WriteAnalysis(analyzed.annotatedApiParser().runtime(), binary).write(directory.toString(), trie);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        AapiData.delete(directory);
+    }
+}
@@ -15,3 +15,4 @@ includeBuild("../language-java/e2immu-java-bytecode")
 includeBuild("../analyzer-modification/e2immu-modification-prepwork")
 includeBuild("e2immu-shallow-aapi")
 includeBuild("e2immu-shallow-analyzer")
+includeBuild("e2immu-shallow-benchmarks")